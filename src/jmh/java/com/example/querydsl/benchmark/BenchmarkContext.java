@@ -0,0 +1,80 @@
+package com.example.querydsl.benchmark;
+
+import com.example.querydsl.QuerydslApplication;
+import com.example.querydsl.domain.MemberIngestRecord;
+import com.example.querydsl.entity.Team;
+import com.example.querydsl.service.MemberIngestionService;
+import jakarta.persistence.EntityManager;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * DB가 필요한 벤치마크에서 사용하는 스프링 컨텍스트
+ * 인메모리 H2에 스키마를 새로 만들고, 로컬 초기 데이터(InitMember)는 넣지 않습니다.
+ * 웹 서버는 startWeb()으로 시작할 때만 띄웁니다.
+ */
+public final class BenchmarkContext {
+
+    private BenchmarkContext() {
+    }
+
+    public static ConfigurableApplicationContext start(String databaseName, String... extraArgs) {
+        return new SpringApplicationBuilder(QuerydslApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args(databaseName, extraArgs));
+    }
+
+    // HTTP로 부하를 주는 벤치마크용, 웹 서버를 빈 포트에 띄운다. (포트는 local.server.port)
+    public static ConfigurableApplicationContext startWeb(String databaseName, String... extraArgs) {
+        List<String> args = new ArrayList<>(List.of(args(databaseName, extraArgs)));
+        args.add("--server.port=0");
+        return new SpringApplicationBuilder(QuerydslApplication.class)
+                .web(WebApplicationType.SERVLET)
+                .run(args.toArray(String[]::new));
+    }
+
+    private static String[] args(String databaseName, String... extraArgs) {
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.profiles.active=bench",
+                "--spring.datasource.url=jdbc:h2:mem:" + databaseName + ";DB_CLOSE_DELAY=-1",
+                "--spring.jpa.hibernate.ddl-auto=create",
+                "--spring.jpa.properties.hibernate.format_sql=false",
+                "--spring.jpa.properties.hibernate.use_sql_comments=false",
+                "--spring.devtools.restart.enabled=false",
+                "--logging.level.org.hibernate.SQL=warn"));
+        args.addAll(List.of(extraArgs));
+        return args.toArray(String[]::new);
+    }
+
+    // teams개의 팀(team0, team1, ...)에 members명의 회원을 골고루 나눠서 넣는다.
+    public static void seed(ConfigurableApplicationContext context, int teams, int members) {
+        EntityManager em = context.getBean(EntityManager.class);
+        TransactionTemplate transaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        List<Long> teamIds = transaction.execute(status -> {
+            List<Long> ids = new ArrayList<>(teams);
+            for (int i = 0; i < teams; i++) {
+                Team team = Team.builder().name("team" + i).build();
+                em.persist(team);
+                ids.add(team.getId());
+            }
+            return ids;
+        });
+        // 회원은 대량 저장 서비스로 넣는다. (JDBC 배치 + 청크별 트랜잭션)
+        Iterator<MemberIngestRecord> records = IntStream.range(0, members)
+                .mapToObj(i -> MemberIngestRecord.builder()
+                        .userName("member" + i)
+                        .age(i % 100)
+                        .teamId(teamIds.get(i % teams))
+                        .build())
+                .iterator();
+        context.getBean(MemberIngestionService.class).ingest(records);
+    }
+}
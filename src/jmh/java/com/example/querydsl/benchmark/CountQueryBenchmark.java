@@ -0,0 +1,92 @@
+package com.example.querydsl.benchmark;
+
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.repository.support.CountQueryDeriver;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.querydsl.entity.QMember.member;
+import static com.example.querydsl.entity.QTeam.team;
+
+/**
+ * 페이지 하나 (컨텐츠 20건 + 전체 개수)를 구하는 비용 비교
+ * legacyDoubleFetch : 기존 applyPagination(pageable, contentQuery)처럼 컨텐츠 쿼리를 페이징 없이 한 번 더 실행
+ * derivedCount      : CountQueryDeriver로 만든 count 쿼리
+ * <p>
+ * ./gradlew jmh -PjmhIncludes=CountQueryBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CountQueryBenchmark {
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"100000"})
+    private int members;
+
+    // none : 조건 없음, team : 팀 이름 조건 (team join 필요)
+    @Param({"none", "team"})
+    private String condition;
+
+    private ConfigurableApplicationContext context;
+    private JPAQueryFactory queryFactory;
+    private EntityManager em;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("count-query-benchmark");
+        BenchmarkContext.seed(context, 10, members);
+        queryFactory = context.getBean(JPAQueryFactory.class);
+        em = context.getBean(EntityManager.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void legacyDoubleFetch(Blackhole blackhole) {
+        List<Member> content = contentQuery().offset(PAGE_SIZE).limit(PAGE_SIZE).fetch();
+        blackhole.consume(content);
+        blackhole.consume(contentQuery().fetch().size());
+    }
+
+    @Benchmark
+    public void derivedCount(Blackhole blackhole) {
+        JPAQuery<Member> query = contentQuery();
+        JPAQuery<Long> countQuery = CountQueryDeriver.derive(em, query);
+        List<Member> content = query.offset(PAGE_SIZE).limit(PAGE_SIZE).fetch();
+        blackhole.consume(content);
+        blackhole.consume(countQuery.fetchOne());
+    }
+
+    private JPAQuery<Member> contentQuery() {
+        return queryFactory
+                .selectFrom(member)
+                .leftJoin(member.team, team).fetchJoin()
+                .where(teamCondition())
+                .orderBy(member.id.desc());
+    }
+
+    private BooleanExpression teamCondition() {
+        return "team".equals(condition) ? team.name.eq("team3") : null;
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.querydsl.benchmark;
+
+import com.example.querydsl.domain.MemberSearchCondition;
+import com.example.querydsl.domain.MemberTeamDTO;
+import com.example.querydsl.repository.MemberRepository;
+import com.example.querydsl.repository.MemberTrigramIndex;
+import com.example.querydsl.repository.support.CountPolicy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * keyword(userName 부분 일치) 검색 : LIKE 전체 스캔 vs 트라이그램 인덱스 후보 id + LIKE
+ * <p>
+ * index=off : query.keyword-index.enabled=false, lower(user_name) like '%keyword%'로 전체 로우를 스캔
+ * index=on  : MemberTrigramIndex가 구한 후보 id로 member.id IN (...) 후 후보 로우에만 LIKE
+ * 회원 이름이 member0 ~ member{N-1}이므로 keyword 12345는 10M 기준 수백 건, 9999999는 1건입니다.
+ * <p>
+ * 10M 로우는 H2 메모리 DB와 인덱스를 같이 올리므로 힙을 넉넉히 줍니다.
+ * ./gradlew jmh -PjmhIncludes=KeywordSearchBenchmark -PjmhHeap=8g
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class KeywordSearchBenchmark {
+    @Param({"10000000"})
+    private int members;
+
+    @Param({"off", "on"})
+    private String index;
+
+    @Param({"12345", "9999999"})
+    private String keyword;
+
+    private ConfigurableApplicationContext context;
+    private MemberRepository memberRepository;
+    private final MemberSearchCondition condition = MemberSearchCondition.builder().build();
+    private final Pageable pageable = PageRequest.of(0, 20);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // count, 검색 결과 캐시가 비용을 가리지 않도록 바로 만료되게 한다.
+        context = BenchmarkContext.start("keyword-search-benchmark",
+                "--query.count-cache.ttl=0s",
+                "--query.search-cache.ttl=0s",
+                "--query.keyword-index.enabled=" + "on".equals(index));
+        // 저장할 때 커밋마다 인덱스에 반영된다.
+        BenchmarkContext.seed(context, 10, members);
+        memberRepository = context.getBean(MemberRepository.class);
+        if ("on".equals(index) && context.getBean(MemberTrigramIndex.class).candidates(keyword) == null) {
+            throw new IllegalStateException("트라이그램 인덱스를 사용할 수 없는 keyword입니다. : " + keyword);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<MemberTeamDTO> searchPageComplex() {
+        return memberRepository.searchPageComplex(condition, pageable, keyword, CountPolicy.EXACT);
+    }
+}
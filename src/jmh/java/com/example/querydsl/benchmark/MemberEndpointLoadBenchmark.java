@@ -0,0 +1,121 @@
+package com.example.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * /v2 ~ /v5/members 부하 테스트 : 요청당 플랫폼 스레드 vs 가상 스레드, DB 벌크헤드 유무
+ * <p>
+ * execution=platform : 기존 Tomcat 스레드 풀 (threads.max=200)
+ * execution=virtual  : 요청마다 가상 스레드 (query.virtual-threads.enabled, Java 21 이상에서 실행해야 의미가 있다.)
+ * bulkhead=on        : 동시 실행 수를 커넥션 풀 크기(10)로 제한하고 나머지는 대기열에서 기다린다.
+ * <p>
+ * 커넥션(10)보다 훨씬 많은 클라이언트 스레드(256)가 쉬지 않고 요청을 보냅니다.
+ * 처리량은 Throughput, p99는 SampleTime 결과로 비교하고, 성공(ok)과 503(rejected), 그 외 실패(failed) 수는
+ * 보조 카운터로 남깁니다.
+ * ./gradlew jmh -PjmhIncludes=MemberEndpointLoadBenchmark -PjmhJvm=/path/to/jdk-21/bin/java
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(256)
+public class MemberEndpointLoadBenchmark {
+    private static final String[] PATHS = {"/v2/members", "/v3/members", "/v4/members", "/v5/members"};
+    private static final int TEAMS = 10;
+    private static final int PAGES = 50;
+
+    @Param({"100000"})
+    private int members;
+
+    @Param({"platform", "virtual"})
+    private String execution;
+
+    @Param({"off", "on"})
+    private String bulkhead;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private String baseUrl;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // count, 검색 결과 캐시가 DB 호출을 가리지 않도록 바로 만료되게 한다.
+        context = BenchmarkContext.startWeb("member-endpoint-load-benchmark",
+                "--query.count-cache.ttl=0s",
+                "--query.search-cache.ttl=0s",
+                "--query.statement-budget.mode=off",
+                "--spring.datasource.hikari.maximum-pool-size=10",
+                "--server.tomcat.threads.max=200",
+                "--query.virtual-threads.enabled=" + "virtual".equals(execution),
+                "--query.bulkhead.enabled=" + "on".equals(bulkhead));
+        BenchmarkContext.seed(context, TEAMS, members);
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    // 클라이언트 스레드마다 다른 엔드포인트, 팀, 페이지를 돌아가면서 요청한다.
+    @State(Scope.Thread)
+    public static class Client {
+        private int sequence;
+
+        private String nextPath() {
+            int n = sequence++;
+            return PATHS[n % PATHS.length]
+                    + "?teamName=team" + (n % TEAMS)
+                    + "&page=" + (n % PAGES + 1)
+                    + "&size=20";
+        }
+    }
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Outcomes {
+        public long ok;
+        public long rejected;
+        public long failed;
+    }
+
+    @Benchmark
+    public int request(Client client, Outcomes outcomes) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + client.nextPath()))
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+        int status = this.client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        if (status == 200) {
+            outcomes.ok++;
+        } else if (status == 503) {
+            outcomes.rejected++;
+        } else {
+            outcomes.failed++;
+        }
+        return status;
+    }
+}
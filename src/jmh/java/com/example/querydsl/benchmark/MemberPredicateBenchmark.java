@@ -0,0 +1,87 @@
+package com.example.querydsl.benchmark;
+
+import com.example.querydsl.domain.MemberSearchCondition;
+import com.example.querydsl.repository.MemberPredicate;
+import com.example.querydsl.repository.MemberPredicateCompiler;
+import com.example.querydsl.repository.MemberTrigramIndex;
+import com.example.querydsl.repository.TeamDictionary;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.example.querydsl.entity.QMember.member;
+import static com.example.querydsl.entity.QTeam.team;
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * 검색 조건 → where 절 변환 비용 비교
+ * legacyHelpers : 기존 userNameEq, teamNameEq, ageGoe, ageLoe 헬퍼 (요청마다 BooleanExpression 트리 생성)
+ * compiler      : MemberPredicateCompiler (모양별 템플릿 재사용 + 값 바인딩)
+ * <p>
+ * ./gradlew jmh 로 실행하고 gc.alloc.rate.norm(요청당 할당 바이트)을 비교합니다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MemberPredicateBenchmark {
+    @Param({"all", "userName", "none"})
+    private String conditions;
+
+    private MemberSearchCondition condition;
+    private MemberPredicateCompiler compiler;
+
+    @Setup
+    public void setUp() {
+        // DB 없이 변환 비용만 보기 위해 EntityManager 없이 만든다.
+        // (팀 이름 → id는 빈 목록이 된다. 실제로는 team 테이블 조회가 하나 더 들어간다.)
+        TeamDictionary teamDictionary = new TeamDictionary(null);
+        // 트라이그램 인덱스는 끈 상태로 (keyword 조건은 측정하지 않는다.)
+        compiler = new MemberPredicateCompiler(teamDictionary, new MemberTrigramIndex(null, false, 0));
+        condition = switch (conditions) {
+            case "all" -> MemberSearchCondition.builder()
+                    .userName("member1").teamName("teamA").ageGoe(10).ageLoe(40).build();
+            case "userName" -> MemberSearchCondition.builder().userName("member1").build();
+            default -> MemberSearchCondition.builder().build();
+        };
+    }
+
+    @Benchmark
+    public Predicate[] legacyHelpers() {
+        return new Predicate[]{
+                userNameEq(condition.getUserName()),
+                teamNameEq(condition.getTeamName()),
+                ageGoe(condition.getAgeGoe()),
+                ageLoe(condition.getAgeLoe())};
+    }
+
+    @Benchmark
+    public MemberPredicate compiler() {
+        return compiler.compile(condition);
+    }
+
+    // 변경 전 각 repository에 복사되어 있던 헬퍼
+    private static BooleanExpression userNameEq(String userName) {
+        return hasText(userName) ? member.userName.eq(userName) : null;
+    }
+
+    private static BooleanExpression teamNameEq(String teamName) {
+        return hasText(teamName) ? team.name.eq(teamName) : null;
+    }
+
+    private static BooleanExpression ageGoe(Integer ageGoe) {
+        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    }
+
+    private static BooleanExpression ageLoe(Integer ageLoe) {
+        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    }
+}
@@ -0,0 +1,209 @@
+package com.example.querydsl.benchmark;
+
+import com.example.querydsl.domain.MemberCursor;
+import com.example.querydsl.domain.MemberSearchCondition;
+import com.example.querydsl.domain.MemberTeamDTO;
+import com.example.querydsl.repository.MemberRepository;
+import com.example.querydsl.repository.MemberTestRepository;
+import com.example.querydsl.repository.TeamDictionary;
+import com.example.querydsl.repository.support.CountPolicy;
+import com.querydsl.core.QueryResults;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.querydsl.entity.QMember.member;
+
+/**
+ * 페이징 방식별 비용 비교 (첫 페이지, 중간 페이지, 마지막 근처 페이지)
+ * <p>
+ * fetchResults           : deprecated fetchResults() (컨텐츠 + count를 Querydsl이 알아서)
+ * offsetDerivedCount     : searchPageSimple (offset + 컨텐츠 쿼리에서 만든 count)
+ * offsetCountPolicy      : searchPageComplex (PageableExecutionUtils처럼 필요할 때만 count)
+ * querydslApplyPagination: MemberTestRepository (Querydsl.applyPagination + fetch join)
+ * deferredJoin           : search2 (id만 먼저 페이징한 뒤 IN 쿼리로 fetch join)
+ * keyset                 : searchSliceByCursor (offset 없이 커서 다음부터, count 없음)
+ * <p>
+ * 지연시간은 JMH 결과(build.gradle에서 JSON으로 저장)로, SQL 문장 수와 DB가 돌려준 로우 수는
+ * 측정이 끝난 뒤 한 번 더 실행해서 H2의 QUERY_STATISTICS로 구해 build/results/jmh/pagination-sql.ndjson에 한 줄씩 추가합니다.
+ * (H2는 스캔한 로우 수를 따로 알려주지 않으므로 각 문장이 돌려준 로우 수의 합으로 대신합니다.)
+ * <p>
+ * ./gradlew jmh -PjmhIncludes=PaginationBenchmark -PjmhMembers=1000000,10000000
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PaginationBenchmark {
+    private static final int PAGE_SIZE = 20;
+    private static final Path SQL_REPORT = Path.of(
+            System.getProperty("pagination.sqlReport", "build/results/jmh/pagination-sql.ndjson"));
+
+    @Param({"1000000"})
+    private int members;
+
+    // first : 첫 페이지, middle : 가운데, deep : 마지막 바로 앞 페이지
+    @Param({"first", "middle", "deep"})
+    private String page;
+
+    private ConfigurableApplicationContext context;
+    private JPAQueryFactory queryFactory;
+    private TeamDictionary teamDictionary;
+    private MemberRepository memberRepository;
+    private MemberTestRepository memberTestRepository;
+    private final MemberSearchCondition condition = MemberSearchCondition.builder().build();
+    private int pageNumber;
+    // DTO 조회는 memberId, 엔티티 조회는 id 속성으로 정렬한다. (둘 다 member.id 내림차순)
+    private Pageable dtoPageable;
+    private Pageable entityPageable;
+    // keyset : 요청한 페이지 바로 앞 로우의 커서
+    private String cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // count, 검색 결과 캐시가 비용을 가리지 않도록 바로 만료되게 한다.
+        context = BenchmarkContext.start("pagination-benchmark",
+                "--query.count-cache.ttl=0s",
+                "--query.search-cache.ttl=0s");
+        BenchmarkContext.seed(context, 10, members);
+        queryFactory = context.getBean(JPAQueryFactory.class);
+        teamDictionary = context.getBean(TeamDictionary.class);
+        memberRepository = context.getBean(MemberRepository.class);
+        memberTestRepository = context.getBean(MemberTestRepository.class);
+
+        int lastPage = members / PAGE_SIZE - 1;
+        pageNumber = switch (page) {
+            case "middle" -> lastPage / 2;
+            case "deep" -> lastPage - 1;
+            default -> 0;
+        };
+        dtoPageable = PageRequest.of(pageNumber, PAGE_SIZE, Sort.by(Sort.Order.desc("memberId")));
+        entityPageable = PageRequest.of(pageNumber, PAGE_SIZE, Sort.by(Sort.Order.desc("id")));
+        cursor = pageNumber == 0 ? null : cursorBefore(pageNumber);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown(BenchmarkParams params) throws SQLException {
+        String benchmark = params.getBenchmark().substring(params.getBenchmark().lastIndexOf('.') + 1);
+        writeSqlReport(benchmark);
+        context.close();
+    }
+
+    @Benchmark
+    @SuppressWarnings("deprecation")
+    public QueryResults<MemberTeamDTO> fetchResults() {
+        return queryFactory
+                .select(teamDictionary.memberTeamDTO())
+                .from(member)
+                .orderBy(member.id.desc())
+                .offset(dtoPageable.getOffset())
+                .limit(PAGE_SIZE)
+                .fetchResults();
+    }
+
+    @Benchmark
+    public Object offsetDerivedCount() {
+        return memberRepository.searchPageSimple(condition, dtoPageable);
+    }
+
+    @Benchmark
+    public Object offsetCountPolicy() {
+        return memberRepository.searchPageComplex(condition, dtoPageable, null, CountPolicy.EXACT);
+    }
+
+    @Benchmark
+    public Object querydslApplyPagination() {
+        return memberTestRepository.applyPagination(condition, entityPageable);
+    }
+
+    @Benchmark
+    public Object deferredJoin() {
+        return memberRepository.search2(condition, entityPageable);
+    }
+
+    @Benchmark
+    public Object keyset() {
+        return memberRepository.searchSliceByCursor(condition, PageRequest.of(0, PAGE_SIZE,
+                Sort.by(Sort.Order.desc("memberId"))), cursor);
+    }
+
+    private Object run(String benchmark) {
+        return switch (benchmark) {
+            case "fetchResults" -> fetchResults();
+            case "offsetDerivedCount" -> offsetDerivedCount();
+            case "offsetCountPolicy" -> offsetCountPolicy();
+            case "querydslApplyPagination" -> querydslApplyPagination();
+            case "deferredJoin" -> deferredJoin();
+            case "keyset" -> keyset();
+            default -> throw new IllegalArgumentException(benchmark);
+        };
+    }
+
+    private String cursorBefore(int pageNumber) {
+        Long lastId = queryFactory
+                .select(member.id)
+                .from(member)
+                .orderBy(member.id.desc())
+                .offset((long) pageNumber * PAGE_SIZE - 1)
+                .fetchFirst();
+        return MemberCursor.of("memberId", false, MemberTeamDTO.builder().memberId(lastId).build()).encode();
+    }
+
+    // 한 번 더 실행해서 SQL 문장 수와 로우 수를 기록한다.
+    private void writeSqlReport(String benchmark) throws SQLException {
+        DataSource dataSource = context.getBean(DataSource.class);
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            // 끄면 지금까지의 통계가 지워진다.
+            statement.execute("SET QUERY_STATISTICS FALSE");
+            statement.execute("SET QUERY_STATISTICS TRUE");
+            run(benchmark);
+            long statements = 0;
+            long rows = 0;
+            try (ResultSet resultSet = statement.executeQuery(
+                    "select sum(EXECUTION_COUNT), sum(CUMULATIVE_ROW_COUNT) "
+                            + "from INFORMATION_SCHEMA.QUERY_STATISTICS "
+                            + "where SQL_STATEMENT not like 'SET %'")) {
+                if (resultSet.next()) {
+                    statements = resultSet.getLong(1);
+                    rows = resultSet.getLong(2);
+                }
+            }
+            statement.execute("SET QUERY_STATISTICS FALSE");
+
+            String line = "{\"benchmark\":\"" + benchmark + "\",\"members\":" + members
+                    + ",\"page\":\"" + page + "\",\"pageNumber\":" + pageNumber
+                    + ",\"statements\":" + statements + ",\"rows\":" + rows + "}\n";
+            Files.createDirectories(SQL_REPORT.toAbsolutePath().getParent());
+            Files.writeString(SQL_REPORT, line, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
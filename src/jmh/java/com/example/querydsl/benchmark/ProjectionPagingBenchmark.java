@@ -0,0 +1,79 @@
+package com.example.querydsl.benchmark;
+
+import com.example.querydsl.domain.MemberSearchCondition;
+import com.example.querydsl.domain.MemberTeamDTO;
+import com.example.querydsl.service.MemberService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 엔티티 페이징 후 DTO 변환 vs DTO 프로젝션 페이징
+ * <p>
+ * entityPage     : MemberService.searchEntities (Member 엔티티를 읽고 영속성 컨텍스트에 올린 뒤 MemberTeamDTO로 변환)
+ * projectionPage : MemberService.search (MemberTeamDTO를 바로 조회, 스냅샷과 프록시가 없다.)
+ * <p>
+ * 요청당 CPU 시간은 AverageTime으로, 메모리는 build.gradle의 gc 프로파일러(gc.alloc.rate.norm)로 비교합니다.
+ * 페이지가 클수록 엔티티 하나당 비용(하이드레이션, 더티 체킹용 스냅샷) 차이가 커집니다.
+ * ./gradlew jmh -PjmhIncludes=ProjectionPagingBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ProjectionPagingBenchmark {
+    @Param({"100000"})
+    private int members;
+
+    // 한 페이지의 로우 수
+    @Param({"20", "200", "1000"})
+    private int pageSize;
+
+    private ConfigurableApplicationContext context;
+    private MemberService memberService;
+    // 팀 하나 (전체의 10%)
+    private final MemberSearchCondition condition = MemberSearchCondition.builder()
+            .teamName("team3")
+            .build();
+    // DTO 페이징은 DTO 필드 이름, 엔티티 페이징은 엔티티 속성 이름으로 정렬한다. (둘 다 member.age, member.id)
+    private Pageable dtoPageable;
+    private Pageable entityPageable;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // count 캐시가 비용을 가리지 않도록 바로 만료되게 한다.
+        context = BenchmarkContext.start("projection-paging-benchmark", "--query.count-cache.ttl=0s");
+        BenchmarkContext.seed(context, 10, members);
+        memberService = context.getBean(MemberService.class);
+        dtoPageable = PageRequest.of(1, pageSize, Sort.by(Sort.Order.desc("age"), Sort.Order.asc("memberId")));
+        entityPageable = PageRequest.of(1, pageSize, Sort.by(Sort.Order.desc("age"), Sort.Order.asc("id")));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<MemberTeamDTO> entityPage() {
+        return memberService.searchEntities(condition, entityPageable);
+    }
+
+    @Benchmark
+    public Page<MemberTeamDTO> projectionPage() {
+        return memberService.search(condition, dtoPageable);
+    }
+}
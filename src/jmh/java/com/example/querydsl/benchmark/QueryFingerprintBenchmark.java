@@ -0,0 +1,61 @@
+package com.example.querydsl.benchmark;
+
+import com.example.querydsl.repository.support.QueryFingerprint;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.jpa.HQLTemplates;
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.impl.JPAQuery;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.querydsl.entity.QMember.member;
+import static com.example.querydsl.entity.QTeam.team;
+
+/**
+ * SlowQueryLog가 실행마다 기록하는 쿼리 지문을 만드는 비용
+ * fingerprint : QueryFingerprint.of (ProfiledJPAQuery가 쿼리 인스턴스마다 한 번 만든다.)
+ * jpql        : 같은 쿼리를 JPQL로 직렬화하는 비용 (fetch()할 때마다 Querydsl이 하는 일, 비교 기준)
+ * <p>
+ * ./gradlew jmh -PjmhIncludes=QueryFingerprintBenchmark 로 실행하고 gc.alloc.rate.norm도 같이 비교합니다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class QueryFingerprintBenchmark {
+    private QueryMetadata metadata;
+
+    @Setup
+    public void setUp() {
+        // /v2/members 검색과 비슷한 모양 (join, 조건 4개, 정렬 2개)
+        metadata = new JPAQuery<>()
+                .select(member)
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(member.userName.eq("member1"),
+                        member.team.id.in(List.of(1L, 2L)),
+                        member.age.goe(10),
+                        member.age.loe(40))
+                .orderBy(member.userName.asc(), member.id.asc())
+                .getMetadata();
+    }
+
+    @Benchmark
+    public String fingerprint() {
+        return QueryFingerprint.of(metadata, "select");
+    }
+
+    @Benchmark
+    public String jpql() {
+        JPQLSerializer serializer = new JPQLSerializer(HQLTemplates.DEFAULT);
+        serializer.serialize(metadata, false, null);
+        return serializer.toString();
+    }
+}
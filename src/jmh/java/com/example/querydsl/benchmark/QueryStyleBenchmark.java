@@ -0,0 +1,143 @@
+package com.example.querydsl.benchmark;
+
+import com.example.querydsl.domain.MemberDTO;
+import com.example.querydsl.domain.MemberSearchCondition;
+import com.example.querydsl.domain.MemberTeamDTO;
+import com.example.querydsl.domain.QMemberDTO;
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.repository.MemberJpaRepository;
+import com.example.querydsl.repository.MemberQueryRepository;
+import com.querydsl.core.types.Projections;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.querydsl.entity.QMember.member;
+
+/**
+ * 같은 조회를 여러 방식으로 작성했을 때의 비교
+ * <p>
+ * where 절 : searchByBuilder(BooleanBuilder + team join) vs search(where 파라미터, MemberPredicateCompiler)
+ * 프로젝션 : Projections.bean / fields / constructor vs @QueryProjection(QMemberDTO)
+ * 쿼리 작성 : JPQL 문자열(findByUserName) vs Querydsl(findByUserName_Querydsl)
+ * <p>
+ * Throughput(ops/ms)과 SampleTime(p50, p90, p99 등 지연시간 분포)을 같이 측정하고,
+ * build.gradle의 gc 프로파일러로 요청당 할당량(gc.alloc.rate.norm)을 봅니다.
+ * ./gradlew jmh -PjmhIncludes=QueryStyleBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class QueryStyleBenchmark {
+    // 전체 회원 수 (팀 10개에 골고루 나눠서 넣는다.)
+    @Param({"10000", "100000"})
+    private int members;
+
+    private ConfigurableApplicationContext context;
+    private JPAQueryFactory queryFactory;
+    private MemberJpaRepository memberJpaRepository;
+    private MemberQueryRepository memberQueryRepository;
+    // 팀 하나, 나이 20 ~ 40 (전체의 약 2%)
+    private final MemberSearchCondition condition = MemberSearchCondition.builder()
+            .teamName("team3")
+            .ageGoe(20)
+            .ageLoe(40)
+            .build();
+    private String userName;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // 검색 결과 캐시가 쿼리 비용을 가리지 않도록 바로 만료되게 한다.
+        context = BenchmarkContext.start("query-style-benchmark", "--query.search-cache.ttl=0s");
+        BenchmarkContext.seed(context, 10, members);
+        queryFactory = context.getBean(JPAQueryFactory.class);
+        memberJpaRepository = context.getBean(MemberJpaRepository.class);
+        memberQueryRepository = context.getBean(MemberQueryRepository.class);
+        userName = "member" + (members / 2);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    // where 절
+
+    @Benchmark
+    public List<MemberTeamDTO> whereBooleanBuilder() {
+        return memberJpaRepository.searchByBuilder(condition);
+    }
+
+    @Benchmark
+    public List<MemberTeamDTO> whereParams() {
+        return memberQueryRepository.search(condition);
+    }
+
+    // 프로젝션 (조건은 같고 select 절만 다르다.)
+
+    @Benchmark
+    public List<MemberDTO> projectionBean() {
+        return queryFactory
+                .select(Projections.bean(MemberDTO.class,
+                        member.userName,
+                        member.age))
+                .from(member)
+                .where(member.age.between(20, 40))
+                .fetch();
+    }
+
+    @Benchmark
+    public List<MemberDTO> projectionFields() {
+        return queryFactory
+                .select(Projections.fields(MemberDTO.class,
+                        member.userName,
+                        member.age))
+                .from(member)
+                .where(member.age.between(20, 40))
+                .fetch();
+    }
+
+    @Benchmark
+    public List<MemberDTO> projectionConstructor() {
+        return queryFactory
+                .select(Projections.constructor(MemberDTO.class,
+                        member.userName,
+                        member.age))
+                .from(member)
+                .where(member.age.between(20, 40))
+                .fetch();
+    }
+
+    @Benchmark
+    public List<MemberDTO> projectionQueryProjection() {
+        return queryFactory
+                .select(new QMemberDTO(member.userName, member.age))
+                .from(member)
+                .where(member.age.between(20, 40))
+                .fetch();
+    }
+
+    // JPQL 문자열 vs Querydsl
+
+    @Benchmark
+    public List<Member> jpqlString() {
+        return memberJpaRepository.findByUserName(userName);
+    }
+
+    @Benchmark
+    public List<Member> querydsl() {
+        return memberJpaRepository.findByUserName_Querydsl(userName);
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.querydsl;
 
+import com.example.querydsl.repository.support.ProfiledJPAQueryFactory;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import jakarta.persistence.EntityManager;
 import org.springframework.boot.SpringApplication;
@@ -14,9 +15,10 @@ public class QuerydslApplication {
         SpringApplication.run(QuerydslApplication.class, args);
     }
 
+    // 실행 시간을 쿼리 지문별로 기록하는 JPAQuery를 만든다. (SlowQueryLog)
     @Bean
     JPAQueryFactory jpaQueryFactory(EntityManager em) {
-        return  new JPAQueryFactory(em);
+        return  new ProfiledJPAQueryFactory(em);
     }
 
 //    @Bean
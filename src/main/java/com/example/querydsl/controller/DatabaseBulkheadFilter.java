@@ -0,0 +1,57 @@
+package com.example.querydsl.controller;
+
+import com.example.querydsl.repository.support.DatabaseBulkhead;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.regex.Pattern;
+
+/**
+ * MemberController 요청(/v1/members ~ /v6/members)을 DatabaseBulkhead 안에서 실행하는 필터 (query.bulkhead)
+ * 자리를 얻지 못하면 컨트롤러를 실행하지 않고 503 + Retry-After로 응답합니다.
+ */
+@Component
+public class DatabaseBulkheadFilter extends OncePerRequestFilter {
+    private static final Pattern MEMBER_API = Pattern.compile("/v\\d+/members(/.*)?");
+
+    private final DatabaseBulkhead bulkhead;
+
+    public DatabaseBulkheadFilter(DatabaseBulkhead bulkhead) {
+        this.bulkhead = bulkhead;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !bulkhead.isEnabled() || !MEMBER_API.matcher(request.getRequestURI()).matches();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        boolean acquired;
+        try {
+            acquired = bulkhead.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value());
+            return;
+        }
+        if (!acquired) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "DB 요청이 많아서 처리할 수 없습니다.");
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            bulkhead.release();
+        }
+    }
+}
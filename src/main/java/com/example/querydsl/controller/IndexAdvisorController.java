@@ -0,0 +1,36 @@
+package com.example.querydsl.controller;
+
+import com.example.querydsl.domain.IndexAdvice;
+import com.example.querydsl.repository.MemberIndexAdvisor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * 인덱스 추천을 확인하고 실제로 만들어보는 개발용 컨트롤러
+ * <p>
+ * 둘 다 대표 바인딩으로 EXPLAIN ANALYZE(실제 실행)를 돌리고, apply는 DDL까지 실행합니다.
+ * local이 기본 프로필이라 프로필로는 막을 수 없으므로 query.index-advisor.dev-endpoints=true일 때만 등록합니다.
+ */
+@ConditionalOnProperty(name = "query.index-advisor.dev-endpoints", havingValue = "true")
+@RestController
+@RequiredArgsConstructor
+public class IndexAdvisorController {
+    private final MemberIndexAdvisor indexAdvisor;
+
+    // 시작 이후 실행된 검색 조건의 모양별 인덱스 추천 (대표 바인딩으로 EXPLAIN ANALYZE 실행)
+    @GetMapping("/stats/index-advice")
+    public List<IndexAdvice> advise() {
+        return indexAdvisor.advise();
+    }
+
+    // 추천 인덱스를 만들고 만들기 전(before), 후(after)의 실행 계획과 실행 시간을 돌려준다.
+    @PostMapping("/dev/index-advice/apply")
+    public List<IndexAdvice> apply() {
+        return indexAdvisor.apply();
+    }
+}
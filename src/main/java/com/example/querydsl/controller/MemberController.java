@@ -1,22 +1,39 @@
 package com.example.querydsl.controller;
 
+import com.example.querydsl.domain.MemberIngestRecord;
 import com.example.querydsl.domain.MemberSearchCondition;
+import com.example.querydsl.domain.MemberSuggestion;
 import com.example.querydsl.domain.MemberTeamDTO;
 import com.example.querydsl.entity.Member;
+import com.example.querydsl.repository.MemberAutocomplete;
 import com.example.querydsl.repository.MemberJpaRepository;
 import com.example.querydsl.repository.MemberRepository;
+import com.example.querydsl.repository.support.CountPolicy;
+import com.example.querydsl.repository.support.CountedPage;
+import com.example.querydsl.repository.support.CursorSlice;
+import com.example.querydsl.service.IngestionFailedException;
+import com.example.querydsl.service.MemberExportService;
+import com.example.querydsl.service.MemberIngestionService;
 import com.example.querydsl.service.MemberService;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -28,17 +45,70 @@ public class MemberController {
     private final MemberJpaRepository memberJpaRepository;
     private final MemberRepository memberRepository;
     private final MemberService memberService;
+    private final MemberExportService memberExportService;
+    private final MemberIngestionService memberIngestionService;
+    private final MemberAutocomplete memberAutocomplete;
+    private final ObjectMapper objectMapper;
 
     @GetMapping("/v1/members")
     public List<MemberTeamDTO> searchMemberV1(MemberSearchCondition condition) {
         return memberJpaRepository.search(condition);
     }
 
+    // 회원 이름 자동완성 (prefix로 시작하는 회원을 이름 순으로 limit개, 최대 query.autocomplete.max-limit)
+    @GetMapping("/v1/members/autocomplete")
+    public List<MemberSuggestion> autocomplete(@RequestParam String prefix,
+                                               @RequestParam(defaultValue = "10") int limit) {
+        return memberAutocomplete.suggest(prefix, limit);
+    }
+
+    // 검색 결과 전체를 NDJSON 또는 CSV로 내려받기 (DB에서 읽는 대로 바로 응답에 쓴다.)
+    @GetMapping("/v1/members/export")
+    public void exportMembers(MemberSearchCondition condition,
+                              @RequestParam(defaultValue = "NDJSON") MemberExportService.Format format,
+                              HttpServletResponse response) throws IOException {
+        response.setContentType(format.getContentType());
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"members." + format.getExtension() + "\"");
+        memberExportService.export(condition, format, response.getOutputStream());
+    }
+
+    // 회원 대량 저장 (요청 본문은 NDJSON, 한 줄에 {"userName", "age", "teamId"})
+    // 본문 전체를 메모리에 올리지 않고 읽는 대로 청크 단위로 저장한다.
+    @PostMapping(value = "/v1/members/bulk", consumes = "application/x-ndjson")
+    public ResponseEntity<?> ingestMembers(HttpServletRequest request,
+                                           @RequestParam(required = false) Integer parallelism) throws IOException {
+        if (parallelism != null && parallelism < 1) {
+            return ResponseEntity.badRequest().body(Map.of("message", "parallelism은 1 이상이어야 합니다."));
+        }
+        try (MappingIterator<MemberIngestRecord> records = objectMapper
+                .readerFor(MemberIngestRecord.class)
+                .readValues(request.getInputStream())) {
+            MemberIngestionService.IngestionResult result = parallelism != null
+                    ? memberIngestionService.ingest(records, parallelism)
+                    : memberIngestionService.ingest(records);
+            Map<String, Object> response = new HashMap<>();
+            response.put("rows", result.getRows());
+            response.put("elapsedMillis", result.getElapsed().toMillis());
+            response.put("rowsPerSecond", result.getRowsPerSecond());
+            return ResponseEntity.ok().body(response);
+        } catch (IngestionFailedException e) {
+            // 커밋된 로우는 남으므로 어디까지 저장됐는지 같이 응답한다.
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", e.getMessage());
+            response.put("committedRows", e.getCommittedRows());
+            return ResponseEntity.internalServerError().body(response);
+        }
+    }
+
     @GetMapping("/v2/members")
     public ResponseEntity<?> searchMemberV2(MemberSearchCondition condition,
                                             Pageable pageable,
-                                            String search) {
-        Page<MemberTeamDTO> memberTeamDTOS = memberRepository.searchPageComplex(condition, pageable, search);
+                                            String search,
+                                            @RequestParam(defaultValue = "EXACT") CountPolicy countPolicy) {
+        CountedPage<MemberTeamDTO> memberTeamDTOS =
+                memberRepository.searchPageComplex(condition, pageable, search, countPolicy);
         Map<String, Object> response = new HashMap<>();
         // 현재 페이지의 아이템 목록
         response.put("members", memberTeamDTOS.getContent());
@@ -56,6 +126,10 @@ public class MemberController {
         response.put("isFirstPage", memberTeamDTOS.isFirst());
         // 마지막 페이지 여부
         response.put("isLastPage", memberTeamDTOS.isLast());
+        // 전체 개수(totalPage)가 추정값인지 여부
+        response.put("approximate", memberTeamDTOS.isApproximate());
+        // 실제로 적용된 count 정책
+        response.put("countPolicy", memberTeamDTOS.getCountPolicy());
         return ResponseEntity.ok().body(response);
     }
 
@@ -76,9 +150,10 @@ public class MemberController {
 
     @GetMapping("/v5/members")
     public ResponseEntity<?> searchMemberV5(@ModelAttribute MemberSearchCondition condition,
-                                            Pageable pageable) {
+                                            Pageable pageable,
+                                            @RequestParam(defaultValue = "EXACT") CountPolicy countPolicy) {
 
-        Page<MemberTeamDTO> memberTeamDTOS = memberService.search3(condition, pageable);
+        CountedPage<MemberTeamDTO> memberTeamDTOS = memberService.search3(condition, pageable, countPolicy);
         Map<String, Object> response = new HashMap<>();
         // 현재 페이지의 아이템 목록
         response.put("members", memberTeamDTOS.getContent());
@@ -96,6 +171,29 @@ public class MemberController {
         response.put("isFirstPage", memberTeamDTOS.isFirst());
         // 마지막 페이지 여부
         response.put("isLastPage", memberTeamDTOS.isLast());
+        // 전체 개수(totalPage)가 추정값인지 여부
+        response.put("approximate", memberTeamDTOS.isApproximate());
+        // 실제로 적용된 count 정책
+        response.put("countPolicy", memberTeamDTOS.getCountPolicy());
+        return ResponseEntity.ok().body(response);
+    }
+
+    // offset 대신 커서로 다음 페이지를 조회 (깊은 페이지도 첫 페이지와 비슷한 비용)
+    @GetMapping("/v6/members")
+    public ResponseEntity<?> searchMemberV6(MemberSearchCondition condition,
+                                            Pageable pageable,
+                                            String cursor) {
+        CursorSlice<MemberTeamDTO> memberTeamDTOS =
+                memberRepository.searchSliceByCursor(condition, pageable, cursor);
+        Map<String, Object> response = new HashMap<>();
+        // 현재 페이지의 아이템 목록
+        response.put("members", memberTeamDTOS.getContent());
+        // 한 페이지에 출력되는 데이터 개수
+        response.put("pageSize", memberTeamDTOS.getSize());
+        // 다음 페이지 존재 여부
+        response.put("hasNextPage", memberTeamDTOS.hasNext());
+        // 다음 페이지를 조회할 때 넘겨줄 커서
+        response.put("nextCursor", memberTeamDTOS.getNextCursor());
         return ResponseEntity.ok().body(response);
     }
 }
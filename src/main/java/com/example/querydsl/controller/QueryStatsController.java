@@ -0,0 +1,59 @@
+package com.example.querydsl.controller;
+
+import com.example.querydsl.repository.MemberSearchCache;
+import com.example.querydsl.repository.support.BulkheadStats;
+import com.example.querydsl.repository.support.CacheStats;
+import com.example.querydsl.repository.support.CompiledQueryCache;
+import com.example.querydsl.repository.support.DatabaseBulkhead;
+import com.example.querydsl.repository.support.QueryCountCache;
+import com.example.querydsl.repository.support.SlowQueryLog;
+import com.example.querydsl.repository.support.SlowQueryStats;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * 조회 성능 관련 캐시, 통계를 확인하는 컨트롤러
+ */
+@RestController
+@RequiredArgsConstructor
+public class QueryStatsController {
+    private final QueryCountCache countCache;
+    private final CompiledQueryCache compiledQueryCache;
+    private final MemberSearchCache searchCache;
+    private final SlowQueryLog slowQueryLog;
+    private final DatabaseBulkhead bulkhead;
+
+    // count 쿼리 캐시의 적중/미스 통계
+    @GetMapping("/stats/count-cache")
+    public CacheStats countCacheStats() {
+        return countCache.getStats();
+    }
+
+    // 컴파일된(JPQL로 직렬화된) 쿼리 캐시의 적중/미스 통계
+    @GetMapping("/stats/compiled-query-cache")
+    public CacheStats compiledQueryCacheStats() {
+        return compiledQueryCache.getStats();
+    }
+
+    // 검색 결과 캐시의 적중률, 제거 수, 추정 메모리 크기(estimatedBytes)
+    @GetMapping("/stats/search-cache")
+    public CacheStats searchCacheStats() {
+        return searchCache.getStats();
+    }
+
+    // 시작 이후 p95 실행 시간이 가장 긴 쿼리 지문 limit개
+    @GetMapping("/stats/slow-queries")
+    public List<SlowQueryStats> slowQueries(@RequestParam(defaultValue = "10") int limit) {
+        return slowQueryLog.slowest(limit);
+    }
+
+    // DB 벌크헤드의 실행 중인 요청 수, 대기열 깊이, 대기 시간
+    @GetMapping("/stats/bulkhead")
+    public BulkheadStats bulkhead() {
+        return bulkhead.getStats();
+    }
+}
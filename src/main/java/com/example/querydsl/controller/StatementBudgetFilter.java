@@ -0,0 +1,47 @@
+package com.example.querydsl.controller;
+
+import com.example.querydsl.repository.support.StatementBudget;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * 요청 하나에서 실행한 SQL 문장 수를 StatementBudget으로 검사하는 필터 (query.statement-budget)
+ * <p>
+ * 요청 단위로 세므로 서비스, 컨트롤러에서 지연 로딩으로 생기는 N+1도 잡힙니다.
+ * 트랜잭션 단위로 세고 싶으면 코드에서 StatementBudget.open()으로 직접 범위를 엽니다.
+ */
+@Component
+public class StatementBudgetFilter extends OncePerRequestFilter {
+    private final StatementBudget.Mode mode;
+    private final int maxStatements;
+    private final int repeatThreshold;
+
+    public StatementBudgetFilter(@Value("${query.statement-budget.mode:off}") StatementBudget.Mode mode,
+                                 @Value("${query.statement-budget.per-request:20}") int maxStatements,
+                                 @Value("${query.statement-budget.repeat-threshold:5}") int repeatThreshold) {
+        this.mode = mode;
+        this.maxStatements = maxStatements;
+        this.repeatThreshold = repeatThreshold;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return mode == StatementBudget.Mode.OFF;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String name = request.getMethod() + " " + request.getRequestURI();
+        try (StatementBudget.Scope ignored = StatementBudget.open(name, maxStatements, repeatThreshold, mode)) {
+            filterChain.doFilter(request, response);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.querydsl.controller;
+
+import lombok.extern.log4j.Log4j2;
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Tomcat이 요청마다 가상 스레드를 만들어서 처리하게 하는 설정 (query.virtual-threads.enabled)
+ * <p>
+ * 조회 요청은 대부분 H2 JDBC 호출을 기다리는 시간이라 플랫폼 스레드(server.tomcat.threads.max)가 금방 모자랍니다.
+ * 가상 스레드는 기다리는 동안 캐리어 스레드를 내려놓으므로 스레드 수가 동시 요청 수를 제한하지 않고,
+ * 동시 실행 수는 DatabaseBulkhead가 커넥션 풀 크기로 제한합니다.
+ * 가상 스레드를 사용할 수 없으면(Java 21 미만) 기존 스레드 풀을 그대로 사용합니다.
+ */
+@Component
+@Log4j2
+@ConditionalOnProperty(name = "query.virtual-threads.enabled", havingValue = "true")
+public class VirtualThreadTomcatCustomizer implements TomcatProtocolHandlerCustomizer<ProtocolHandler> {
+
+    @Override
+    public void customize(ProtocolHandler protocolHandler) {
+        try {
+            ExecutorService executor = (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null);
+            protocolHandler.setExecutor(executor);
+            log.info("Tomcat 요청을 가상 스레드에서 처리합니다.");
+        } catch (ReflectiveOperationException e) {
+            log.warn("가상 스레드를 사용할 수 없어서(Java 21 미만) 플랫폼 스레드 풀로 요청을 처리합니다.");
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.querydsl.domain;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * 관찰한 검색 조건의 모양 하나에 대한 인덱스 추천
+ */
+@Getter
+@ToString
+@Builder(toBuilder = true)
+public class IndexAdvice {
+    // 조건의 모양 ex) teamName+ageGoe
+    private final String shape;
+    // 이 모양으로 검색한 횟수
+    private final long observations;
+    // 이 모양에서 가장 많이 사용한 정렬 컬럼 (없으면 null)
+    private final String sort;
+    // 조건(같음 → 범위) + 정렬 순서의 복합 인덱스 컬럼
+    private final List<String> columns;
+    // columns 뒤에 조회하는 나머지 컬럼을 붙여서 테이블을 읽지 않아도 되는 커버링 인덱스 컬럼
+    private final List<String> coveringColumns;
+    // 같은 컬럼으로 시작하는 인덱스가 이미 있으면 그 이름 (이 경우 ddl은 null)
+    private final String existingIndex;
+    private final String ddl;
+    private final IndexPlan before;
+    // 인덱스를 만든 뒤의 결과 (apply 하기 전에는 null)
+    private final IndexPlan after;
+}
@@ -0,0 +1,23 @@
+package com.example.querydsl.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 대표 바인딩으로 실행한 쿼리 하나의 H2 EXPLAIN ANALYZE 결과와 실행 시간
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class IndexPlan {
+    // 바인딩 값이 들어간 SQL (설명용)
+    private final String sql;
+    private final String plan;
+    // 회원 테이블을 읽을 때 사용한 인덱스 (전체 스캔이면 tableScan)
+    private final String index;
+    // H2가 읽은 로우 수 (plan의 scanCount 합)
+    private final long scanCount;
+    // query.index-advisor.runs번 실행한 시간의 중앙값
+    private final double medianMillis;
+}
@@ -0,0 +1,19 @@
+package com.example.querydsl.domain;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * 디코딩할 수 없거나 요청한 정렬과 맞지 않는 커서를 받았을 때 던지는 예외
+ * 컨트롤러까지 올라가면 400 Bad Request로 응답합니다.
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidCursorException extends IllegalArgumentException {
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+
+    public InvalidCursorException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
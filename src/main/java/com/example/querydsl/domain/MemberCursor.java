@@ -0,0 +1,85 @@
+package com.example.querydsl.domain;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * 키셋(seek) 페이징에서 사용하는 커서
+ * 마지막으로 내려준 회원의 id와 정렬 키(userName)를 담고,
+ * 클라이언트에게는 Base64로 인코딩된 불투명한 문자열로만 전달합니다.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+public class MemberCursor {
+    private static final String DELIMITER = "|";
+    // userName이 null인 경우를 구분하기 위한 표시
+    private static final String NULL_VALUE = "N";
+    private static final String VALUE_PREFIX = "V";
+
+    // 정렬 기준 (memberId, userName)
+    private final String sortProperty;
+    private final boolean ascending;
+    // 마지막으로 조회된 회원의 id
+    private final Long memberId;
+    // 마지막으로 조회된 회원의 이름 (userName 정렬일 때만 의미가 있음)
+    private final String userName;
+
+    private MemberCursor(String sortProperty, boolean ascending, Long memberId, String userName) {
+        this.sortProperty = sortProperty;
+        this.ascending = ascending;
+        this.memberId = memberId;
+        this.userName = userName;
+    }
+
+    public static MemberCursor of(String sortProperty, boolean ascending, MemberTeamDTO last) {
+        return new MemberCursor(sortProperty, ascending, last.getMemberId(), last.getUserName());
+    }
+
+    // 요청한 정렬과 커서를 만들 때의 정렬이 같은지 확인
+    public boolean matches(String sortProperty, boolean ascending) {
+        return this.sortProperty.equals(sortProperty) && this.ascending == ascending;
+    }
+
+    public String encode() {
+        String raw = sortProperty + DELIMITER
+                + (ascending ? "A" : "D") + DELIMITER
+                + memberId + DELIMITER
+                + (userName == null ? NULL_VALUE : VALUE_PREFIX + userName);
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws InvalidCursorException Base64가 아니거나 형식이 맞지 않는 커서 (400)
+     */
+    public static MemberCursor decode(String cursor) {
+        String[] tokens;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            // userName에 구분자가 들어있을 수 있으므로 마지막 토큰은 나누지 않습니다.
+            tokens = raw.split("\\|", 4);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("잘못된 커서입니다. cursor : " + cursor, e);
+        }
+        // 정렬 기준, 방향(A/D), id, 이름(N 또는 V로 시작)
+        if (tokens.length != 4
+                || tokens[0].isEmpty()
+                || !(tokens[1].equals("A") || tokens[1].equals("D"))
+                || !(tokens[3].equals(NULL_VALUE) || tokens[3].startsWith(VALUE_PREFIX))) {
+            throw new InvalidCursorException("잘못된 커서입니다. cursor : " + cursor);
+        }
+        Long memberId;
+        try {
+            memberId = Long.valueOf(tokens[2]);
+        } catch (NumberFormatException e) {
+            throw new InvalidCursorException("잘못된 커서입니다. cursor : " + cursor, e);
+        }
+        String userName = tokens[3].equals(NULL_VALUE) ? null : tokens[3].substring(VALUE_PREFIX.length());
+        return new MemberCursor(tokens[0], tokens[1].equals("A"), memberId, userName);
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.querydsl.domain;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+// 대량 저장 요청의 회원 한 명 (NDJSON 한 줄)
+@ToString
+@Getter
+@NoArgsConstructor
+public class MemberIngestRecord {
+    private String userName;
+    private int age;
+    // 팀은 이름이 아니라 id로 받는다. (조회 없이 참조만 설정)
+    private Long teamId;
+
+    @Builder
+    public MemberIngestRecord(String userName, int age, Long teamId) {
+        this.userName = userName;
+        this.age = age;
+        this.teamId = teamId;
+    }
+}
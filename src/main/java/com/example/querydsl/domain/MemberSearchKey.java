@@ -0,0 +1,47 @@
+package com.example.querydsl.domain;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Locale;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * MemberSearchCondition + 검색어를 정규화한 키
+ * 검색 조건에 영향을 주지 않는 값(orderBy)은 빼고, 빈 문자열은 조건이 없는 것(null)으로 맞춥니다.
+ * 조건은 같은데 표현만 다른 요청이 같은 캐시 엔트리를 사용하도록 하기 위해 사용합니다.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+public class MemberSearchKey {
+    private final String userName;
+    private final String teamName;
+    private final Integer ageGoe;
+    private final Integer ageLoe;
+    // 검색어는 대소문자를 무시하고 비교(likeIgnoreCase)하므로 소문자로 맞춘다.
+    private final String keyword;
+
+    private MemberSearchKey(String userName, String teamName, Integer ageGoe, Integer ageLoe, String keyword) {
+        this.userName = userName;
+        this.teamName = teamName;
+        this.ageGoe = ageGoe;
+        this.ageLoe = ageLoe;
+        this.keyword = keyword;
+    }
+
+    public static MemberSearchKey of(MemberSearchCondition condition) {
+        return of(condition, null);
+    }
+
+    public static MemberSearchKey of(MemberSearchCondition condition, String search) {
+        return new MemberSearchKey(
+                hasText(condition.getUserName()) ? condition.getUserName() : null,
+                hasText(condition.getTeamName()) ? condition.getTeamName() : null,
+                condition.getAgeGoe(),
+                condition.getAgeLoe(),
+                hasText(search) ? search.toLowerCase(Locale.ROOT) : null);
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.querydsl.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 회원 이름 자동완성 결과 한 건
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class MemberSuggestion {
+    private final Long memberId;
+    private final String userName;
+    private final Long teamId;
+}
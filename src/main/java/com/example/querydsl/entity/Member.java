@@ -1,16 +1,24 @@
 package com.example.querydsl.entity;
 
+import com.example.querydsl.entity.listener.EntityChangeListener;
 import jakarta.persistence.*;
 import lombok.*;
 
 @Entity(name = "query_members")
+@EntityListeners(EntityChangeListener.class)
+// 키셋 페이징(userName 정렬)에서 (userName, member_id) 순서로 바로 찾아갈 수 있도록 인덱스를 둔다.
+@Table(indexes = @Index(name = "idx_member_user_name_id", columnList = "user_name, member_id"))
 @Getter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @Builder
 @AllArgsConstructor
 @ToString(of = {"id", "userName", "age"})
 public class Member {
-    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // IDENTITY는 insert를 해야 id를 알 수 있어서 Hibernate가 insert를 JDBC 배치로 묶지 못한다.
+    // 시퀀스에서 allocationSize만큼 id를 한 번에 예약하고(pooled-lo) 메모리에서 나눠준다.
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "member_seq")
+    @SequenceGenerator(name = "member_seq", sequenceName = "member_seq", allocationSize = 50)
     @Column(name = "member_id")
     private Long id;
 
@@ -0,0 +1,30 @@
+package com.example.querydsl.entity.listener;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Member, Team 데이터가 변경되었음을 알리는 이벤트
+ * 캐시나 인메모리 인덱스는 이 이벤트를 받아서 자신의 상태를 갱신하거나 비웁니다.
+ */
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class EntityChangeEvent {
+    public enum Action {
+        PERSIST, UPDATE, REMOVE,
+        // 벌크 update, delete SQL이 실행됨 (BulkStatements, 어떤 로우가 바뀌었는지 모르므로 entity는 null)
+        STATEMENT
+    }
+
+    // 변경된 엔티티의 클래스 (Member.class, Team.class)
+    private final Class<?> entityType;
+    // 변경된 엔티티 (STATEMENT이면 null)
+    private final Object entity;
+    private final Action action;
+
+    public boolean isAbout(Class<?> type) {
+        return type.isAssignableFrom(entityType);
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.querydsl.entity.listener;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+
+/**
+ * JPA 엔티티 리스너
+ * 스프링 부트가 Hibernate에 SpringBeanContainer를 등록해주기 때문에 스프링 빈을 주입받을 수 있습니다.
+ * 주의 : Querydsl의 update(), delete() 같은 벌크 연산은 영속성 컨텍스트를 거치지 않으므로 여기서 잡히지 않습니다.
+ * (벌크 연산은 SqlStatementInspector가 SQL을 보고 STATEMENT 이벤트로 알려줍니다.)
+ */
+@RequiredArgsConstructor
+public class EntityChangeListener {
+    private final ApplicationEventPublisher eventPublisher;
+
+    @PostPersist
+    public void postPersist(Object entity) {
+        publish(entity, EntityChangeEvent.Action.PERSIST);
+    }
+
+    @PostUpdate
+    public void postUpdate(Object entity) {
+        publish(entity, EntityChangeEvent.Action.UPDATE);
+    }
+
+    @PostRemove
+    public void postRemove(Object entity) {
+        publish(entity, EntityChangeEvent.Action.REMOVE);
+    }
+
+    private void publish(Object entity, EntityChangeEvent.Action action) {
+        eventPublisher.publishEvent(new EntityChangeEvent(entity.getClass(), entity, action));
+    }
+}
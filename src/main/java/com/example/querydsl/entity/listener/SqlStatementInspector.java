@@ -0,0 +1,96 @@
+package com.example.querydsl.entity.listener;
+
+import com.example.querydsl.repository.support.BulkStatements;
+import com.example.querydsl.repository.support.QueryCallContext;
+import com.example.querydsl.repository.support.SlowQueryLog;
+import com.example.querydsl.repository.support.StatementBudget;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Hibernate가 실행하는 모든 SQL을 거쳐가는 StatementInspector (Hibernate에는 하나만 등록할 수 있어서 여기서 같이 처리합니다.)
+ * <p>
+ * 1. 벌크 연산(BulkStatements)의 update, delete 문이면 EntityChangeEvent(STATEMENT)를 발행합니다.
+ * 2. 조회 메트릭이 켜져 있으면 현재 repository 호출의 SQL 문장 수를 셉니다. (QueryCallContext)
+ * 3. 요청, 테스트 등에 열린 StatementBudget 범위가 있으면 문장 수와 반복(N+1)을 검사합니다.
+ * 4. 실행 중인 Querydsl 쿼리가 있으면 느린 쿼리 로그에 남길 SQL을 기억합니다. (SlowQueryLog)
+ * <p>
+ * Querydsl의 update(member), delete(member) 같은 벌크 연산은 엔티티 리스너를 거치지 않아서
+ * 캐시나 인메모리 인덱스가 변경을 알 수 없었습니다. 여기서는 SQL의 대상 테이블로 엔티티를 찾아서 알려줍니다.
+ * 엔티티 변경(더티 체킹, em.remove)으로 실행되는 update, delete는 엔티티 리스너가 엔티티와 함께 알려주므로
+ * 여기서는 발행하지 않습니다. (받는 쪽이 한 건 수정에 전체를 다시 만들지 않도록)
+ */
+@Component
+@RequiredArgsConstructor
+public class SqlStatementInspector implements StatementInspector, HibernatePropertiesCustomizer {
+    // use_sql_comments로 붙는 /* ... */ 주석 뒤의 update 테이블, delete from 테이블
+    private static final Pattern WRITE = Pattern.compile(
+            "\\s*(?:/\\*.*?\\*/\\s*)*(?:update|delete\\s+from)\\s+([\\w.\"]+)",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    private final ApplicationEventPublisher eventPublisher;
+    // EntityManagerFactory를 만들 때 이 빈이 필요하므로 처음 사용할 때 꺼낸다.
+    private final ObjectProvider<EntityManagerFactory> entityManagerFactory;
+    // 테이블 이름(소문자) -> 엔티티 클래스
+    private volatile Map<String, Class<?>> entityByTable;
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, this);
+    }
+
+    @Override
+    public String inspect(String sql) {
+        QueryCallContext.onStatement(sql);
+        StatementBudget.onStatement(sql);
+        SlowQueryLog.onStatement(sql);
+        if (!BulkStatements.isActive()) {
+            return sql;
+        }
+        Matcher matcher = WRITE.matcher(sql);
+        if (matcher.lookingAt()) {
+            Class<?> entityType = entityByTable().get(tableName(matcher.group(1)));
+            if (entityType != null) {
+                eventPublisher.publishEvent(
+                        new EntityChangeEvent(entityType, null, EntityChangeEvent.Action.STATEMENT));
+            }
+        }
+        return sql;
+    }
+
+    private Map<String, Class<?>> entityByTable() {
+        Map<String, Class<?>> tables = entityByTable;
+        if (tables == null) {
+            Map<String, Class<?>> loaded = new HashMap<>();
+            entityManagerFactory.getObject().unwrap(SessionFactoryImplementor.class)
+                    .getMappingMetamodel()
+                    .forEachEntityDescriptor(persister -> {
+                        for (Object table : persister.getQuerySpaces()) {
+                            loaded.put(tableName(String.valueOf(table)), persister.getMappedClass());
+                        }
+                    });
+            tables = Map.copyOf(loaded);
+            entityByTable = tables;
+        }
+        return tables;
+    }
+
+    // 스키마, 따옴표를 뗀 소문자 테이블 이름
+    private static String tableName(String name) {
+        String table = name.substring(name.lastIndexOf('.') + 1).replace("\"", "");
+        return table.toLowerCase(Locale.ROOT);
+    }
+}
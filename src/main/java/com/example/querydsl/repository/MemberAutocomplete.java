@@ -0,0 +1,411 @@
+package com.example.querydsl.repository;
+
+import com.example.querydsl.domain.MemberSuggestion;
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.listener.EntityChangeEvent;
+import com.example.querydsl.repository.support.AfterCommitBuffer;
+import com.example.querydsl.repository.support.ProfiledJPAQuery;
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.log4j.Log4j2;
+import org.hibernate.Session;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static com.example.querydsl.entity.QMember.member;
+
+/**
+ * 회원 이름 접두사 자동완성 인메모리 인덱스
+ * <p>
+ * 소문자 이름 순으로 정렬된 배열(이름, 회원 id, 팀 id)에서 이진 탐색으로 접두사의 시작 위치를 찾고 limit개만 읽습니다.
+ * 엔트리 하나는 객체가 아니라 배열의 같은 위치이고, 이름이 이미 소문자면 원래 이름 문자열을 그대로 공유합니다.
+ * <p>
+ * 배열은 다시 만들지 않고 바꾸지도 않으므로, 커밋된 변경은 작은 정렬 버퍼(delta)와 제외 목록(removed)에 쌓아두고
+ * 조회할 때 배열과 버퍼를 합쳐서 읽습니다. 버퍼가 compact-threshold를 넘으면 배열과 합쳐서 새 배열을 만듭니다.
+ * 1. 시작할 때 전체를 스트림으로 읽어서 만들고
+ * 2. 회원 저장, 수정, 삭제는 커밋 후에 버퍼에 반영하고 (트랜잭션마다 모아서 한 번에)
+ * 3. 벌크 연산(STATEMENT)은 백그라운드에서 다시 만들고, 그동안은 DB에서 접두사 LIKE로 찾습니다.
+ */
+@Component
+@Log4j2
+public class MemberAutocomplete implements DisposableBean {
+    private final EntityManagerFactory emf;
+    private final JPAQueryFactory queryFactory;
+    private final boolean enabled;
+    private final int maxLimit;
+    private final int compactThreshold;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Sorted base = Sorted.EMPTY;
+    // 배열을 만든 뒤에 저장, 수정된 엔트리 (소문자 이름, id 순)
+    private final TreeSet<Entry> delta = new TreeSet<>();
+    private final Map<Long, Entry> deltaById = new HashMap<>();
+    // 배열에 있지만 삭제, 수정되어서 건너뛸 회원 id
+    private final Set<Long> removed = new HashSet<>();
+    private volatile boolean ready;
+    // 다시 만드는 동안 커밋된 변경 (다 만든 뒤에 다시 적용한다.)
+    private List<Change> changesDuringRebuild;
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+    private final AtomicLong generation = new AtomicLong();
+    private final ExecutorService rebuilder = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "member-autocomplete");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public MemberAutocomplete(EntityManagerFactory emf,
+                              JPAQueryFactory queryFactory,
+                              @Value("${query.autocomplete.enabled:true}") boolean enabled,
+                              @Value("${query.autocomplete.max-limit:50}") int maxLimit,
+                              @Value("${query.autocomplete.compact-threshold:10000}") int compactThreshold) {
+        this.emf = emf;
+        this.queryFactory = queryFactory;
+        this.enabled = enabled;
+        this.maxLimit = maxLimit;
+        this.compactThreshold = compactThreshold;
+    }
+
+    // prefix로 시작하는 회원 (대소문자 무시, 이름, id 순) 최대 limit개
+    public List<MemberSuggestion> suggest(String prefix, int limit) {
+        if (prefix == null || prefix.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        int size = Math.min(limit, maxLimit);
+        String key = prefix.toLowerCase(Locale.ROOT);
+        if (!ready) {
+            return suggestFromDatabase(key, size);
+        }
+        lock.readLock().lock();
+        try {
+            List<MemberSuggestion> result = new ArrayList<>(size);
+            int index = base.lowerBound(key);
+            Iterator<Entry> changed = delta.tailSet(new Entry(key, Long.MIN_VALUE, null, 0), true).iterator();
+            Entry next = nextMatching(changed, key);
+            while (result.size() < size) {
+                while (index < base.size() && removed.contains(base.ids[index])) {
+                    index++;
+                }
+                boolean baseMatches = index < base.size() && base.keys[index].startsWith(key);
+                if (!baseMatches && next == null) {
+                    break;
+                }
+                if (next == null || baseMatches && base.compare(index, next) < 0) {
+                    result.add(base.suggestion(index++));
+                } else {
+                    result.add(next.suggestion());
+                    next = nextMatching(changed, key);
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // 아직 배열과 합치지 않은 변경 수 (버퍼 + 제외 목록)
+    int pendingChanges() {
+        lock.readLock().lock();
+        try {
+            return delta.size() + removed.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (enabled) {
+            rebuild(this::load);
+        }
+    }
+
+    // loader가 회원을 넘겨주면 정렬해서 새 배열을 만든다. (테스트에서는 DB 없이 회원을 넘겨준다.)
+    void rebuild(Consumer<Consumer<MemberSuggestion>> loader) {
+        lock.writeLock().lock();
+        try {
+            changesDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        long startGeneration = generation.get();
+        long start = System.nanoTime();
+        List<Entry> entries = new ArrayList<>();
+        try {
+            loader.accept(row -> {
+                if (row.getUserName() != null) {
+                    entries.add(new Entry(row.getUserName().toLowerCase(Locale.ROOT), row.getMemberId(),
+                            row.getUserName(), teamId(row.getTeamId())));
+                }
+            });
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                changesDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+        entries.sort(null);
+        Sorted rebuilt = Sorted.of(entries);
+
+        lock.writeLock().lock();
+        try {
+            base = rebuilt;
+            delta.clear();
+            deltaById.clear();
+            removed.clear();
+            changesDuringRebuild.forEach(this::apply);
+            changesDuringRebuild = null;
+            ready = generation.get() == startGeneration;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("member autocomplete built. members : {}, {}ms",
+                rebuilt.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // 롤백된 변경이 들어가지 않도록 커밋 후에 반영한다.
+    @EventListener
+    public void onEntityChange(EntityChangeEvent event) {
+        if (!enabled || !event.isAbout(Member.class)) {
+            return;
+        }
+        AfterCommitBuffer.add(this, Change.of(event), this::commit);
+    }
+
+    @Override
+    public void destroy() {
+        rebuilder.shutdownNow();
+    }
+
+    private void commit(List<Change> changes) {
+        if (changes.stream().anyMatch(change -> change.action == EntityChangeEvent.Action.STATEMENT)) {
+            // 벌크 연산은 어떤 로우가 바뀌었는지 모르므로 다시 만든다.
+            requestRebuild();
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.addAll(changes);
+            }
+            changes.forEach(this::apply);
+            if (delta.size() + removed.size() > compactThreshold) {
+                compact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // 같은 회원의 이전 엔트리를 지우고, 저장, 수정이면 새 엔트리를 버퍼에 넣는다.
+    private void apply(Change change) {
+        if (change.id == null) {
+            return;
+        }
+        Entry previous = deltaById.remove(change.id);
+        if (previous != null) {
+            delta.remove(previous);
+        }
+        removed.add(change.id);
+        if (change.action != EntityChangeEvent.Action.REMOVE && change.userName != null) {
+            Entry entry = new Entry(change.userName.toLowerCase(Locale.ROOT), change.id, change.userName, change.teamId);
+            delta.add(entry);
+            deltaById.put(change.id, entry);
+        }
+    }
+
+    // 배열과 버퍼를 합쳐서 새 배열을 만든다. (DB를 읽지 않는다, 쓰기 락 안에서 호출)
+    private void compact() {
+        List<Entry> merged = new ArrayList<>(base.size() + delta.size());
+        for (int i = 0; i < base.size(); i++) {
+            if (!removed.contains(base.ids[i])) {
+                merged.add(base.entry(i));
+            }
+        }
+        merged.addAll(delta);
+        merged.sort(null);
+        base = Sorted.of(merged);
+        delta.clear();
+        deltaById.clear();
+        removed.clear();
+    }
+
+    private void requestRebuild() {
+        generation.incrementAndGet();
+        ready = false;
+        if (rebuildScheduled.compareAndSet(false, true)) {
+            rebuilder.execute(() -> {
+                rebuildScheduled.set(false);
+                try {
+                    rebuild();
+                } catch (RuntimeException e) {
+                    log.warn("member autocomplete rebuild failed", e);
+                }
+            });
+        }
+    }
+
+    private void load(Consumer<MemberSuggestion> target) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            em.unwrap(Session.class).setDefaultReadOnly(true);
+            try (Stream<Tuple> stream = new ProfiledJPAQuery<Tuple>(em)
+                    .select(member.id, member.userName, member.team.id)
+                    .from(member)
+                    .setHint(HibernateHints.HINT_FETCH_SIZE, 1000)
+                    .stream()) {
+                stream.forEach(row -> target.accept(new MemberSuggestion(row.get(member.id),
+                        row.get(member.userName), row.get(member.team.id))));
+            }
+        } finally {
+            em.close();
+        }
+    }
+
+    // 인덱스를 만드는 중에는 DB에서 찾는다. (접두사 LIKE라도 lower()가 있어서 전체를 스캔한다.)
+    private List<MemberSuggestion> suggestFromDatabase(String key, int size) {
+        return queryFactory
+                .select(member.id, member.userName, member.team.id)
+                .from(member)
+                .where(member.userName.lower().startsWith(key))
+                .orderBy(member.userName.lower().asc(), member.id.asc())
+                .limit(size)
+                .fetch()
+                .stream()
+                .map(row -> new MemberSuggestion(row.get(member.id), row.get(member.userName),
+                        row.get(member.team.id)))
+                .toList();
+    }
+
+    private static Entry nextMatching(Iterator<Entry> entries, String key) {
+        if (entries.hasNext()) {
+            Entry entry = entries.next();
+            if (entry.key.startsWith(key)) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    // 팀이 없으면 0
+    private static long teamId(Long teamId) {
+        return teamId != null ? teamId : 0L;
+    }
+
+    private record Entry(String key, long id, String userName, long teamId) implements Comparable<Entry> {
+        @Override
+        public int compareTo(Entry other) {
+            int compared = key.compareTo(other.key);
+            return compared != 0 ? compared : Long.compare(id, other.id);
+        }
+
+        private MemberSuggestion suggestion() {
+            return new MemberSuggestion(id, userName, teamId != 0 ? teamId : null);
+        }
+    }
+
+    private record Change(Long id, String userName, long teamId, EntityChangeEvent.Action action) {
+        private static Change of(EntityChangeEvent event) {
+            Member changed = (Member) event.getEntity();
+            if (changed == null) {
+                return new Change(null, null, 0, event.getAction());
+            }
+            Long teamId = changed.getTeam() != null ? changed.getTeam().getId() : null;
+            return new Change(changed.getId(), changed.getUserName(), teamId(teamId), event.getAction());
+        }
+    }
+
+    // 소문자 이름, id 순으로 정렬된 엔트리를 같은 위치의 배열 원소로 보관한다.
+    private static final class Sorted {
+        private static final Sorted EMPTY = new Sorted(new String[0], new String[0], new long[0], new long[0]);
+
+        private final String[] keys;
+        // 원래 이름, 소문자 이름과 같으면 같은 문자열을 가리킨다.
+        private final String[] names;
+        private final long[] ids;
+        private final long[] teamIds;
+
+        private Sorted(String[] keys, String[] names, long[] ids, long[] teamIds) {
+            this.keys = keys;
+            this.names = names;
+            this.ids = ids;
+            this.teamIds = teamIds;
+        }
+
+        private static Sorted of(List<Entry> entries) {
+            int size = entries.size();
+            String[] keys = new String[size];
+            String[] names = new String[size];
+            long[] ids = new long[size];
+            long[] teamIds = new long[size];
+            for (int i = 0; i < size; i++) {
+                Entry entry = entries.get(i);
+                keys[i] = entry.userName.equals(entry.key) ? entry.userName : entry.key;
+                names[i] = entry.userName;
+                ids[i] = entry.id;
+                teamIds[i] = entry.teamId;
+            }
+            return new Sorted(keys, names, ids, teamIds);
+        }
+
+        private int size() {
+            return ids.length;
+        }
+
+        // key 이상인 첫 위치
+        private int lowerBound(String key) {
+            int index = Arrays.binarySearch(keys, key);
+            if (index < 0) {
+                return -index - 1;
+            }
+            // 같은 이름이 여러 개면 첫 번째로
+            while (index > 0 && keys[index - 1].equals(key)) {
+                index--;
+            }
+            return index;
+        }
+
+        private int compare(int index, Entry entry) {
+            int compared = keys[index].compareTo(entry.key);
+            return compared != 0 ? compared : Long.compare(ids[index], entry.id);
+        }
+
+        private Entry entry(int index) {
+            return new Entry(keys[index], ids[index], names[index], teamIds[index]);
+        }
+
+        private MemberSuggestion suggestion(int index) {
+            return new MemberSuggestion(ids[index], names[index], teamIds[index] != 0 ? teamIds[index] : null);
+        }
+    }
+}
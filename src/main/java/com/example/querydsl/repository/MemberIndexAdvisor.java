@@ -0,0 +1,344 @@
+package com.example.querydsl.repository;
+
+import com.example.querydsl.domain.IndexAdvice;
+import com.example.querydsl.domain.IndexPlan;
+import com.example.querydsl.domain.MemberSearchKey;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Query;
+import lombok.extern.log4j.Log4j2;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 실제로 실행된 회원 검색 조건의 모양과 정렬을 모아서 인덱스를 추천하는 컴포넌트
+ * <p>
+ * MemberPredicateCompiler가 조건의 모양과 값을, 페이징 메서드가 정렬을 static 메서드로 알려줍니다.
+ * 추천할 때는 모양마다 마지막으로 본 값을 대표 바인딩으로 사용해서 H2 EXPLAIN ANALYZE로 어떤 인덱스를 쓰고
+ * 몇 로우를 읽는지 확인합니다.
+ * 인덱스 컬럼 순서는 같음 조건(userName, teamName의 team_id) → 범위 조건(age) → 정렬 컬럼입니다.
+ * 범위 조건 뒤의 정렬 컬럼은 정렬에 도움이 되지 않으므로 범위 조건이 없을 때만 붙입니다.
+ * keyword(부분 일치)는 B-tree 인덱스로 찾을 수 없으므로 컬럼에 넣지 않습니다. (MemberTrigramIndex 참고)
+ * apply()는 추천한 인덱스를 만들고 전후를 다시 측정합니다.
+ * (IndexAdvisorController에서만 호출하며, 이 엔드포인트는 query.index-advisor.dev-endpoints=true일 때만 등록됩니다.)
+ */
+@Component
+@Log4j2
+public class MemberIndexAdvisor {
+    private static final String TABLE = "query_members";
+    // 검색 결과(MemberTeamDTO)에서 회원 테이블에서 읽는 컬럼 (member_id는 H2 보조 인덱스에 항상 들어있다.)
+    private static final List<String> SELECTED = List.of("user_name", "age", "team_id");
+    // Pageable의 정렬 속성 → 컬럼
+    private static final Map<String, String> SORT_COLUMNS = Map.of(
+            "memberId", "member_id",
+            "id", "member_id",
+            "userName", "user_name",
+            "age", "age",
+            "teamId", "team_id");
+    // ex) /* PUBLIC.IDX_MEMBER_USER_NAME_ID: USER_NAME = ?1 */, /* PUBLIC.QUERY_MEMBERS.tableScan */
+    private static final Pattern INDEX = Pattern.compile("/\\*\\s*PUBLIC\\.([\\w.]+)");
+    private static final Pattern SCAN_COUNT = Pattern.compile("scanCount:\\s*(\\d+)");
+
+    private static volatile MemberIndexAdvisor active;
+
+    private final EntityManagerFactory emf;
+    private final TeamDictionary teamDictionary;
+    private final MemberSortRegistry sortRegistry;
+    private final int runs;
+    private final boolean covering;
+    private final long minObservations;
+    // 모양(mask)별 관찰 기록
+    private final Observation[] observations = new Observation[1 << 6];
+
+    public MemberIndexAdvisor(EntityManagerFactory emf,
+                              TeamDictionary teamDictionary,
+                              MemberSortRegistry sortRegistry,
+                              @Value("${query.index-advisor.enabled:true}") boolean enabled,
+                              @Value("${query.index-advisor.runs:5}") int runs,
+                              @Value("${query.index-advisor.covering:false}") boolean covering,
+                              @Value("${query.index-advisor.min-observations:1}") long minObservations) {
+        this.emf = emf;
+        this.teamDictionary = teamDictionary;
+        this.sortRegistry = sortRegistry;
+        this.runs = runs;
+        this.covering = covering;
+        this.minObservations = minObservations;
+        for (int mask = 0; mask < observations.length; mask++) {
+            observations[mask] = new Observation();
+        }
+        active = enabled ? this : null;
+    }
+
+    // MemberPredicateCompiler가 조건을 만들 때 호출한다. (빈이 없거나 꺼져 있으면 아무것도 하지 않는다.)
+    public static void observe(MemberQueryShape shape, MemberSearchKey key) {
+        MemberIndexAdvisor advisor = active;
+        if (advisor != null) {
+            Observation observation = advisor.observations[shape.getMask()];
+            observation.count.increment();
+            observation.sample = key;
+        }
+    }
+
+    // 페이징 메서드가 정렬을 알려준다. (첫 번째 정렬 속성만 본다.)
+    public static void observeSort(MemberQueryShape shape, Sort sort) {
+        MemberIndexAdvisor advisor = active;
+        if (advisor == null || sort.isEmpty()) {
+            return;
+        }
+        String column = SORT_COLUMNS.get(sort.iterator().next().getProperty());
+        if (column != null) {
+            advisor.observations[shape.getMask()].sorts
+                    .computeIfAbsent(column, c -> new LongAdder())
+                    .increment();
+        }
+    }
+
+    // 관찰한 모양별 추천 (많이 사용한 모양 순서)
+    public List<IndexAdvice> advise() {
+        EntityManager em = emf.createEntityManager();
+        try {
+            em.unwrap(Session.class).setDefaultReadOnly(true);
+            Map<String, List<String>> existing = existingIndexes(em);
+            List<IndexAdvice> advices = new ArrayList<>();
+            for (int mask = 0; mask < observations.length; mask++) {
+                Observation observation = observations[mask];
+                long count = observation.count.sum();
+                if (count < minObservations || observation.sample == null) {
+                    continue;
+                }
+                IndexAdvice advice = advise(em, mask, count, observation, existing);
+                if (advice != null) {
+                    advices.add(advice);
+                }
+            }
+            advices.sort(Comparator.comparingLong(IndexAdvice::getObservations).reversed());
+            return advices;
+        } finally {
+            em.close();
+        }
+    }
+
+    // 추천한 인덱스를 만들고 모양별 대표 바인딩으로 다시 측정한다.
+    public List<IndexAdvice> apply() {
+        List<IndexAdvice> advices = advise();
+        List<IndexAdvice> applied = new ArrayList<>(advices.size());
+        EntityManager em = emf.createEntityManager();
+        try {
+            for (IndexAdvice advice : advices) {
+                if (advice.getDdl() == null) {
+                    applied.add(advice);
+                    continue;
+                }
+                em.getTransaction().begin();
+                em.createNativeQuery(advice.getDdl()).executeUpdate();
+                em.getTransaction().commit();
+                log.info("인덱스 생성 : {}", advice.getDdl());
+                applied.add(advice);
+            }
+            // 새 인덱스로 정렬할 수 있게 된 키를 허용한다.
+            sortRegistry.refresh();
+            // 인덱스를 모두 만든 뒤에 측정해야 다른 모양을 위해 만든 인덱스도 반영된다.
+            em.unwrap(Session.class).setDefaultReadOnly(true);
+            for (int i = 0; i < applied.size(); i++) {
+                IndexAdvice advice = applied.get(i);
+                if (advice.getDdl() != null) {
+                    Observation observation = observations[mask(advice.getShape())];
+                    applied.set(i, advice.toBuilder()
+                            .after(plan(em, mask(advice.getShape()), observation.sample, advice.getSort()))
+                            .build());
+                }
+            }
+            return applied;
+        } finally {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            em.close();
+        }
+    }
+
+    public void clear() {
+        for (Observation observation : observations) {
+            observation.count.reset();
+            observation.sorts.clear();
+            observation.sample = null;
+        }
+    }
+
+    private IndexAdvice advise(EntityManager em, int mask, long count, Observation observation,
+                               Map<String, List<String>> existing) {
+        String sort = observation.mostUsedSort();
+        List<String> columns = new ArrayList<>(4);
+        if ((mask & MemberQueryShape.USER_NAME) != 0) columns.add("user_name");
+        if ((mask & MemberQueryShape.TEAM_NAME) != 0) columns.add("team_id");
+        boolean range = (mask & (MemberQueryShape.AGE_GOE | MemberQueryShape.AGE_LOE)) != 0;
+        if (range) {
+            columns.add("age");
+        } else if (sort != null && !columns.contains(sort)) {
+            columns.add(sort);
+        }
+        if (columns.isEmpty()) {
+            // 인덱스로 좁힐 수 있는 조건이 없다. (조건 없음, keyword만)
+            return null;
+        }
+        List<String> coveringColumns = new ArrayList<>(columns);
+        for (String column : SELECTED) {
+            if (!coveringColumns.contains(column)) {
+                coveringColumns.add(column);
+            }
+        }
+        List<String> target = covering ? coveringColumns : columns;
+        String existingIndex = findIndexStartingWith(existing, target);
+        return IndexAdvice.builder()
+                .shape(MemberQueryShape.of(mask).getTag())
+                .observations(count)
+                .sort(sort)
+                .columns(columns)
+                .coveringColumns(coveringColumns)
+                .existingIndex(existingIndex)
+                .ddl(existingIndex == null ? ddl(target) : null)
+                .before(plan(em, mask, observation.sample, sort))
+                .build();
+    }
+
+    // 대표 바인딩으로 검색 쿼리(회원 테이블 부분)를 EXPLAIN ANALYZE 하고 runs번 실행해서 시간을 잰다.
+    private IndexPlan plan(EntityManager em, int mask, MemberSearchKey key, String sort) {
+        StringJoiner where = new StringJoiner(" and ", " where ", "").setEmptyValue("");
+        List<Object> values = new ArrayList<>(5);
+        if ((mask & MemberQueryShape.USER_NAME) != 0) {
+            values.add(key.getUserName());
+            where.add("m.user_name = ?" + values.size());
+        }
+        if ((mask & MemberQueryShape.TEAM_NAME) != 0) {
+            List<Long> teamIds = teamDictionary.idsOf(key.getTeamName());
+            values.add(teamIds.isEmpty() ? List.of(-1L) : teamIds);
+            where.add("m.team_id in (?" + values.size() + ")");
+        }
+        if ((mask & MemberQueryShape.AGE_GOE) != 0) {
+            values.add(key.getAgeGoe());
+            where.add("m.age >= ?" + values.size());
+        }
+        if ((mask & MemberQueryShape.AGE_LOE) != 0) {
+            values.add(key.getAgeLoe());
+            where.add("m.age <= ?" + values.size());
+        }
+        if ((mask & MemberQueryShape.KEYWORD) != 0) {
+            values.add("%" + key.getKeyword() + "%");
+            where.add("lower(m.user_name) like ?" + values.size());
+        }
+        String sql = "select m.member_id, m.user_name, m.age, m.team_id from " + TABLE + " m" + where
+                + " order by m." + (sort != null ? sort : "member_id") + " limit 20";
+
+        StringBuilder plan = new StringBuilder();
+        for (Object row : bind(em.createNativeQuery("explain analyze " + sql), values).getResultList()) {
+            plan.append(row);
+        }
+        long[] elapsed = new long[Math.max(runs, 1)];
+        for (int i = 0; i < elapsed.length; i++) {
+            long start = System.nanoTime();
+            bind(em.createNativeQuery(sql), values).getResultList();
+            elapsed[i] = System.nanoTime() - start;
+            em.clear();
+        }
+        Arrays.sort(elapsed);
+        return new IndexPlan(sql + " " + values, plan.toString(), usedIndex(plan), scanCount(plan),
+                elapsed[elapsed.length / 2] / 1_000_000.0);
+    }
+
+    private static Query bind(Query query, List<Object> values) {
+        for (int i = 0; i < values.size(); i++) {
+            query.setParameter(i + 1, values.get(i));
+        }
+        return query;
+    }
+
+    // 인덱스 이름 → 컬럼 목록 (소문자, 순서대로)
+    @SuppressWarnings("unchecked")
+    private static Map<String, List<String>> existingIndexes(EntityManager em) {
+        List<Object[]> rows = em.createNativeQuery(
+                        "select index_name, column_name from information_schema.index_columns"
+                                + " where table_name = ?1 order by index_name, ordinal_position")
+                .setParameter(1, TABLE.toUpperCase(Locale.ROOT))
+                .getResultList();
+        Map<String, List<String>> indexes = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            indexes.computeIfAbsent(((String) row[0]).toLowerCase(Locale.ROOT), name -> new ArrayList<>())
+                    .add(((String) row[1]).toLowerCase(Locale.ROOT));
+        }
+        return indexes;
+    }
+
+    // 추천 컬럼으로 시작하는 인덱스가 있으면 새로 만들 필요가 없다.
+    private static String findIndexStartingWith(Map<String, List<String>> existing, List<String> columns) {
+        for (Map.Entry<String, List<String>> index : existing.entrySet()) {
+            List<String> indexColumns = index.getValue();
+            if (indexColumns.size() >= columns.size() && indexColumns.subList(0, columns.size()).equals(columns)) {
+                return index.getKey();
+            }
+        }
+        return null;
+    }
+
+    private static String ddl(List<String> columns) {
+        return "create index if not exists idx_member_" + String.join("_", columns)
+                + " on " + TABLE + " (" + String.join(", ", columns) + ")";
+    }
+
+    private static String usedIndex(CharSequence plan) {
+        Matcher matcher = INDEX.matcher(plan);
+        return matcher.find() ? matcher.group(1).toLowerCase(Locale.ROOT) : null;
+    }
+
+    private static long scanCount(CharSequence plan) {
+        long total = 0;
+        Matcher matcher = SCAN_COUNT.matcher(plan);
+        while (matcher.find()) {
+            total += Long.parseLong(matcher.group(1));
+        }
+        return total;
+    }
+
+    private int mask(String shape) {
+        for (int mask = 0; mask < observations.length; mask++) {
+            if (MemberQueryShape.of(mask).getTag().equals(shape)) {
+                return mask;
+            }
+        }
+        throw new IllegalArgumentException("알 수 없는 조건의 모양입니다. " + shape);
+    }
+
+    private static final class Observation {
+        private final LongAdder count = new LongAdder();
+        private final Map<String, LongAdder> sorts = new ConcurrentHashMap<>();
+        // 마지막으로 본 조건 값 (대표 바인딩)
+        private volatile MemberSearchKey sample;
+
+        private String mostUsedSort() {
+            String most = null;
+            long mostCount = 0;
+            for (Map.Entry<String, LongAdder> sort : sorts.entrySet()) {
+                long count = sort.getValue().sum();
+                if (count > mostCount) {
+                    most = sort.getKey();
+                    mostCount = count;
+                }
+            }
+            return most;
+        }
+    }
+}
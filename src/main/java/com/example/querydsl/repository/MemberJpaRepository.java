@@ -5,9 +5,9 @@ import com.example.querydsl.domain.MemberTeamDTO;
 import com.example.querydsl.domain.QMemberTeamDTO;
 import com.example.querydsl.entity.Member;
 import com.example.querydsl.entity.QTeam;
+import com.example.querydsl.repository.support.ReadOnlyQueries;
 import com.querydsl.core.BooleanBuilder;
 import com.querydsl.core.types.Predicate;
-import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
@@ -27,6 +27,9 @@ import static org.springframework.util.StringUtils.isEmpty;
 public class MemberJpaRepository {
     private final EntityManager em;
     private final JPAQueryFactory jpaQueryFactory;
+    private final MemberPredicateCompiler predicateCompiler;
+    private final TeamDictionary teamDictionary;
+    private final MemberSearchCache searchCache;
 
     public void save(Member member) {
         em.persist(member);
@@ -91,52 +94,19 @@ public class MemberJpaRepository {
                 .fetch();
     }
 
+    @ReadOnlyQueries
     public List<MemberTeamDTO> search(MemberSearchCondition condition) {
-        return jpaQueryFactory
-                .select(new QMemberTeamDTO(
-                        member.id.as("memberId"),
-                        member.userName,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(userNameEq(condition.getUserName()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe()))
-                .fetch();
+        // MemberRepository.search와 같은 결과이므로 같은 캐시를 사용한다.
+        return searchCache.getOrSearch(condition, () -> predicateCompiler.compile(condition).applyTo(jpaQueryFactory
+                        .select(teamDictionary.memberTeamDTO())
+                        .from(member))
+                .fetch());
     }
+
     public List<Member> search2(MemberSearchCondition condition) {
-        return jpaQueryFactory
-                .select(member)
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(userNameEq(condition.getUserName()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe()))
+        return predicateCompiler.compile(condition).applyTo(jpaQueryFactory
+                        .select(member)
+                        .from(member))
                 .fetch();
     }
-
-    private BooleanExpression ageBetween(int ageLoe, int ageGoe) {
-        return ageLoe(ageLoe).and(ageGoe(ageGoe));
-    }
-
-    private BooleanExpression userNameEq(String userName) {
-        return userName.isEmpty() ? null : member.userName.eq(userName);
-    }
-
-    private BooleanExpression teamNameEq(String teamName) {
-        return hasText(teamName) ? team.name.eq(teamName) : null;
-    }
-
-    private BooleanExpression ageGoe(Integer ageGoe) {
-        return ageGoe != null ? member.age.goe(ageGoe) : null;
-    }
-
-    private BooleanExpression ageLoe(Integer ageLoe) {
-        return ageLoe != null ? member.age.loe(ageLoe) : null;
-    }
-
 }
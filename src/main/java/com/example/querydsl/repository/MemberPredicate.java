@@ -0,0 +1,40 @@
+package com.example.querydsl.repository;
+
+import com.example.querydsl.domain.MemberSearchKey;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQuery;
+import lombok.Getter;
+
+import java.util.Map;
+
+/**
+ * MemberPredicateCompiler가 만든 검색 조건
+ * where 절(Param이 들어있는 템플릿)은 같은 모양끼리 공유하고, 값은 params에만 들어있습니다.
+ */
+@Getter
+public class MemberPredicate {
+    private final MemberSearchKey key;
+    private final MemberQueryShape shape;
+    // 같은 모양의 요청끼리 공유하는 배열이므로 수정하면 안 된다.
+    private final Predicate[] where;
+    private final Map<ParamExpression<?>, Object> params;
+
+    MemberPredicate(MemberSearchKey key,
+                    MemberQueryShape shape,
+                    Predicate[] where,
+                    Map<ParamExpression<?>, Object> params) {
+        this.key = key;
+        this.shape = shape;
+        this.where = where;
+        this.params = params;
+    }
+
+    // 쿼리에 where 절을 추가하고 값을 바인딩한다.
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public <T> JPAQuery<T> applyTo(JPAQuery<T> query) {
+        query.where(where);
+        params.forEach((param, value) -> query.getMetadata().setParam((ParamExpression) param, value));
+        return query;
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.querydsl.repository;
+
+import com.example.querydsl.domain.MemberSearchCondition;
+import com.example.querydsl.domain.MemberSearchKey;
+import com.example.querydsl.repository.support.QueryCallContext;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.Param;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.example.querydsl.entity.QMember.member;
+
+/**
+ * MemberSearchCondition을 where 절로 바꿔주는 컴포넌트
+ * <p>
+ * 기존 userNameEq, teamNameEq, ageGoe, ageLoe 헬퍼는 요청마다 BooleanExpression 트리를 새로 만들었습니다.
+ * 여기서는 조건의 모양(MemberQueryShape)별 where 절을 Param으로 한 번만 만들어두고,
+ * 요청마다 값만 바인딩합니다.
+ * 팀 이름 조건은 TeamDictionary로 팀 id를 찾아서 member.team.id IN (...)으로 바꾸므로 team을 join하지 않아도 됩니다.
+ * keyword 조건은 MemberTrigramIndex로 후보 id를 구할 수 있으면 member.id IN (...)을 같이 넣어서
+ * 전체 로우를 스캔하지 않고 후보 로우에만 LIKE를 적용합니다. (쓰기 트랜잭션 안에서는 사용하지 않음)
+ */
+@Component
+public class MemberPredicateCompiler {
+    // 검색 조건 값 대신 들어가는 파라미터
+    static final Param<String> USER_NAME = new Param<>(String.class, "userName");
+    // 팀 이름에 해당하는 팀 id 목록
+    @SuppressWarnings("rawtypes")
+    static final Param<List> TEAM_IDS = new Param<>(List.class, "teamIds");
+    static final Param<Integer> AGE_GOE = new Param<>(Integer.class, "ageGoe");
+    static final Param<Integer> AGE_LOE = new Param<>(Integer.class, "ageLoe");
+    static final Param<String> KEYWORD = new Param<>(String.class, "keyword");
+    // keyword를 포함할 수 있는 회원 id 목록
+    @SuppressWarnings("rawtypes")
+    static final Param<List> KEYWORD_IDS = new Param<>(List.class, "keywordIds");
+
+    // 없는 팀 이름이면 빈 IN 대신 존재할 수 없는 id 하나로 바인딩한다.
+    private static final List<Long> NO_TEAM = List.of(-1L);
+    private static final List<Long> NO_MEMBER = List.of(-1L);
+
+    private final TeamDictionary teamDictionary;
+    private final MemberTrigramIndex trigramIndex;
+    // 모양(mask)별 where 절, 64가지뿐이므로 미리 만들어둔다.
+    private final Predicate[][] templates = new Predicate[1 << 6][];
+
+    public MemberPredicateCompiler(TeamDictionary teamDictionary, MemberTrigramIndex trigramIndex) {
+        this.teamDictionary = teamDictionary;
+        this.trigramIndex = trigramIndex;
+        for (int mask = 0; mask < templates.length; mask++) {
+            templates[mask] = template(mask);
+        }
+    }
+
+    public MemberPredicate compile(MemberSearchCondition condition) {
+        return compile(MemberSearchKey.of(condition));
+    }
+
+    public MemberPredicate compile(MemberSearchCondition condition, String search) {
+        return compile(MemberSearchKey.of(condition, search));
+    }
+
+    public MemberPredicate compile(MemberSearchKey key) {
+        MemberQueryShape shape = MemberQueryShape.of(key);
+        MemberIndexAdvisor.observe(shape, key);
+        Map<ParamExpression<?>, Object> params = bind(key);
+        long[] candidates = key.getKeyword() != null && !inReadWriteTransaction()
+                ? trigramIndex.candidates(key.getKeyword()) : null;
+        if (candidates != null) {
+            shape = shape.with(MemberQueryShape.KEYWORD_IDS);
+            params.put(KEYWORD_IDS, candidates.length == 0 ? NO_MEMBER : Arrays.stream(candidates).boxed().toList());
+        }
+        QueryCallContext.shape(shape.getTag());
+        return new MemberPredicate(key, shape, templates[shape.getMask()], params);
+    }
+
+    private static Predicate[] template(int mask) {
+        List<Predicate> where = new ArrayList<>(5);
+        if ((mask & MemberQueryShape.USER_NAME) != 0) where.add(member.userName.eq(USER_NAME));
+        if ((mask & MemberQueryShape.TEAM_NAME) != 0) where.add(Expressions.booleanTemplate("{0} in {1}", member.team.id, TEAM_IDS));
+        if ((mask & MemberQueryShape.AGE_GOE) != 0) where.add(member.age.goe(AGE_GOE));
+        if ((mask & MemberQueryShape.AGE_LOE) != 0) where.add(member.age.loe(AGE_LOE));
+        // 후보 id로 먼저 좁히고, 트라이그램이 연속해서 나오는지는 LIKE로 확인한다.
+        if ((mask & MemberQueryShape.KEYWORD_IDS) != 0) where.add(Expressions.booleanTemplate("{0} in {1}", member.id, KEYWORD_IDS));
+        // likeIgnoreCase는 대소문자를 무시하고 부분 일치 검색을 수행합니다. (값에 %를 붙여서 바인딩)
+        if ((mask & MemberQueryShape.KEYWORD) != 0) where.add(member.userName.likeIgnoreCase(KEYWORD));
+        return where.toArray(new Predicate[0]);
+    }
+
+    // 모양에 들어있는 Param에만 값을 넣는다.
+    private Map<ParamExpression<?>, Object> bind(MemberSearchKey key) {
+        Map<ParamExpression<?>, Object> params = new HashMap<>(8);
+        if (key.getUserName() != null) params.put(USER_NAME, key.getUserName());
+        if (key.getTeamName() != null) params.put(TEAM_IDS, teamIds(key.getTeamName()));
+        if (key.getAgeGoe() != null) params.put(AGE_GOE, key.getAgeGoe());
+        if (key.getAgeLoe() != null) params.put(AGE_LOE, key.getAgeLoe());
+        if (key.getKeyword() != null) params.put(KEYWORD, "%" + key.getKeyword() + "%");
+        return params;
+    }
+
+    // 인덱스는 커밋 후에 바뀌므로 쓰기 트랜잭션 안에서는 방금 저장하거나 이름을 바꾼 회원이 후보에서 빠진다.
+    // 이때는 MemberSearchCache처럼 인덱스를 거치지 않고 LIKE로만 검색한다.
+    private static boolean inReadWriteTransaction() {
+        return TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    private List<Long> teamIds(String teamName) {
+        List<Long> ids = teamDictionary.idsOf(teamName);
+        return ids.isEmpty() ? NO_TEAM : ids;
+    }
+}
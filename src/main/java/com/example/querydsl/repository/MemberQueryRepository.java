@@ -2,8 +2,7 @@ package com.example.querydsl.repository;
 
 import com.example.querydsl.domain.MemberSearchCondition;
 import com.example.querydsl.domain.MemberTeamDTO;
-import com.example.querydsl.domain.QMemberTeamDTO;
-import com.querydsl.core.types.dsl.BooleanExpression;
+import com.example.querydsl.repository.support.ReadOnlyQueries;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Repository;
@@ -11,45 +10,20 @@ import org.springframework.stereotype.Repository;
 import java.util.List;
 
 import static com.example.querydsl.entity.QMember.member;
-import static com.example.querydsl.entity.QTeam.team;
-import static org.springframework.util.StringUtils.hasText;
 
 @Repository
 @RequiredArgsConstructor
 public class MemberQueryRepository {
 
     private final JPAQueryFactory queryFactory;
+    private final MemberPredicateCompiler predicateCompiler;
+    private final TeamDictionary teamDictionary;
 
+    @ReadOnlyQueries
     public List<MemberTeamDTO> search(MemberSearchCondition condition) {
-        return queryFactory
-                .select(new QMemberTeamDTO(
-                        member.id.as("memberId"),
-                        member.userName,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(userNameEq(condition.getUserName()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe()))
+        return predicateCompiler.compile(condition).applyTo(queryFactory
+                        .select(teamDictionary.memberTeamDTO())
+                        .from(member))
                 .fetch();
     }
-
-    private BooleanExpression userNameEq(String userName) {
-        return hasText(userName) ? member.userName.eq(userName) : null;
-    }
-
-    private BooleanExpression teamNameEq(String teamName) {
-        return hasText(teamName) ? team.name.eq(teamName) : null;
-    }
-
-    private BooleanExpression ageGoe(Integer ageGoe) {
-        return ageGoe != null ? member.age.goe(ageGoe) : null;
-    }
-
-    private BooleanExpression ageLoe(Integer ageLoe) {
-        return ageLoe != null ? member.age.loe(ageLoe) : null;
-    }
 }
@@ -0,0 +1,83 @@
+package com.example.querydsl.repository;
+
+import com.example.querydsl.domain.MemberSearchKey;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.util.StringJoiner;
+
+/**
+ * 검색 조건의 모양
+ * userName, teamName, ageGoe, ageLoe, keyword 중 어떤 조건이 들어왔는지만 나타냅니다.
+ * keyword를 트라이그램 인덱스로 후보 id까지 줄였으면 KEYWORD_IDS도 켜집니다. (2^6 = 64가지)
+ * 값이 달라도 모양이 같으면 같은 JPQL을 사용할 수 있습니다.
+ */
+@Getter
+@EqualsAndHashCode
+public class MemberQueryShape {
+    public static final int USER_NAME = 1;
+    public static final int TEAM_NAME = 1 << 1;
+    public static final int AGE_GOE = 1 << 2;
+    public static final int AGE_LOE = 1 << 3;
+    public static final int KEYWORD = 1 << 4;
+    // keyword의 후보 id (MemberTrigramIndex), 검색 조건이 아니라 실행 방법이므로 of()에서는 켜지 않는다.
+    public static final int KEYWORD_IDS = 1 << 5;
+
+    // 모양은 64가지뿐이므로 미리 만들어두고 재사용한다.
+    private static final MemberQueryShape[] SHAPES = new MemberQueryShape[1 << 6];
+
+    static {
+        for (int mask = 0; mask < SHAPES.length; mask++) {
+            SHAPES[mask] = new MemberQueryShape(mask);
+        }
+    }
+
+    private final int mask;
+    // 메트릭 태그 등에 사용하는 이름 ex) userName+ageGoe, 조건이 없으면 none
+    @EqualsAndHashCode.Exclude
+    private final String tag;
+
+    private MemberQueryShape(int mask) {
+        this.mask = mask;
+        this.tag = tagOf(mask);
+    }
+
+    private static String tagOf(int mask) {
+        StringJoiner names = new StringJoiner("+");
+        if ((mask & USER_NAME) != 0) names.add("userName");
+        if ((mask & TEAM_NAME) != 0) names.add("teamName");
+        if ((mask & AGE_GOE) != 0) names.add("ageGoe");
+        if ((mask & AGE_LOE) != 0) names.add("ageLoe");
+        if ((mask & KEYWORD) != 0) names.add("keyword");
+        if ((mask & KEYWORD_IDS) != 0) names.add("keywordIds");
+        return mask == 0 ? "none" : names.toString();
+    }
+
+    public static MemberQueryShape of(MemberSearchKey key) {
+        int mask = 0;
+        if (key.getUserName() != null) mask |= USER_NAME;
+        if (key.getTeamName() != null) mask |= TEAM_NAME;
+        if (key.getAgeGoe() != null) mask |= AGE_GOE;
+        if (key.getAgeLoe() != null) mask |= AGE_LOE;
+        if (key.getKeyword() != null) mask |= KEYWORD;
+        return SHAPES[mask];
+    }
+
+    // mask로 모양 찾기 (MemberIndexAdvisor)
+    static MemberQueryShape of(int mask) {
+        return SHAPES[mask];
+    }
+
+    public MemberQueryShape with(int flag) {
+        return SHAPES[mask | flag];
+    }
+
+    public boolean has(int flag) {
+        return (mask & flag) != 0;
+    }
+
+    @Override
+    public String toString() {
+        return "MemberQueryShape(" + Integer.toBinaryString(mask) + ")";
+    }
+}
@@ -3,17 +3,36 @@ package com.example.querydsl.repository;
 import com.example.querydsl.domain.MemberSearchCondition;
 import com.example.querydsl.domain.MemberTeamDTO;
 import com.example.querydsl.entity.Member;
+import com.example.querydsl.repository.support.CountPolicy;
+import com.example.querydsl.repository.support.CountedPage;
+import com.example.querydsl.repository.support.CursorSlice;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface MemberRepositoryCustom {
     List<MemberTeamDTO> search(MemberSearchCondition memberSearchCondition);
+    // 결과를 List로 모으지 않고 fetchSize 단위로 DB에서 읽어오는 스트림 (트랜잭션 안에서 사용하고 반드시 close)
+    Stream<MemberTeamDTO> streamSearch(MemberSearchCondition memberSearchCondition, int fetchSize);
     Page<MemberTeamDTO> searchPageSimple(MemberSearchCondition memberSearchCondition, Pageable pageable);
     Page<MemberTeamDTO> searchPageComplex(MemberSearchCondition memberSearchCondition,
                                           Pageable pageable,
                                           String search);
+    // 전체 개수를 구하는 방법(정확, 추정, 생략)을 정책으로 지정
+    CountedPage<MemberTeamDTO> searchPageComplex(MemberSearchCondition memberSearchCondition,
+                                                 Pageable pageable,
+                                                 String search,
+                                                 CountPolicy countPolicy);
 
     Page<Member> search2(MemberSearchCondition memberSearchCondition, Pageable pageable);
+    CountedPage<Member> search2(MemberSearchCondition memberSearchCondition,
+                                Pageable pageable,
+                                CountPolicy countPolicy);
+
+    // offset 대신 커서(마지막 회원 id + 정렬 키)로 다음 페이지를 조회하는 키셋 페이징
+    CursorSlice<MemberTeamDTO> searchSliceByCursor(MemberSearchCondition memberSearchCondition,
+                                                   Pageable pageable,
+                                                   String cursor);
 }
@@ -1,23 +1,39 @@
 package com.example.querydsl.repository;
 
+import com.example.querydsl.domain.InvalidCursorException;
+import com.example.querydsl.domain.MemberCursor;
 import com.example.querydsl.domain.MemberSearchCondition;
 import com.example.querydsl.domain.MemberTeamDTO;
-import com.example.querydsl.domain.QMemberTeamDTO;
 import com.example.querydsl.entity.Member;
-import com.querydsl.core.QueryResults;
+import com.example.querydsl.repository.support.CompiledQuery;
+import com.example.querydsl.repository.support.CompiledQueryCache;
+import com.example.querydsl.repository.support.CursorSlice;
+import com.example.querydsl.repository.support.CountPolicy;
+import com.example.querydsl.repository.support.CountQueryDeriver;
+import com.example.querydsl.repository.support.CountedPage;
+import com.example.querydsl.repository.support.IdFirstQueries;
+import com.example.querydsl.repository.support.PageCount;
+import com.example.querydsl.repository.support.ReadOnlyQueries;
+import com.example.querydsl.repository.support.TotalCountResolver;
 import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.ParamExpression;
 import com.querydsl.core.types.dsl.BooleanExpression;
-import com.querydsl.core.types.dsl.PathBuilder;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.domain.Sort.Order;
 
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 
 import static com.example.querydsl.entity.QMember.member;
@@ -25,184 +41,275 @@ import static com.example.querydsl.entity.QTeam.team;
 import static com.querydsl.core.types.Order.*;
 import static org.springframework.util.StringUtils.hasText;
 
+// DTO를 반환하는 메서드의 Querydsl 쿼리만 읽기 전용으로 실행한다.
+// 엔티티를 반환하는 search2는 호출한 쪽에서 수정할 수 있으므로 더티 체킹과 flush를 그대로 둔다.
 @RequiredArgsConstructor
 public class MemberRepositoryImpl implements MemberRepositoryCustom {
 
     private final JPAQueryFactory queryFactory;
+    private final EntityManager em;
+    private final TotalCountResolver totalCountResolver;
+    private final CompiledQueryCache compiledQueryCache;
+    private final MemberPredicateCompiler predicateCompiler;
+    private final TeamDictionary teamDictionary;
+    private final MemberSearchCache searchCache;
+    private final MemberSortRegistry sortRegistry;
+
+    // search2를 id 먼저 페이징(2단계)으로 실행할지 여부
+    @Value("${query.pagination.id-first:true}")
+    private boolean idFirst;
 
 
     @Override
+    @ReadOnlyQueries
     public List<MemberTeamDTO> search(MemberSearchCondition condition) {
+        // 같은 조건이면 Member/Team이 바뀌기 전까지 결과를 재사용한다.
+        return searchCache.getOrSearch(condition, () -> {
+            MemberPredicate predicate = predicateCompiler.compile(condition);
 
-        return queryFactory
-                .select(new QMemberTeamDTO(
-                        member.id.as("memberId"),
-                        member.userName,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(userNameEq(condition.getUserName()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe()))
-                .fetch();
+            // 조건의 모양이 같으면 이미 JPQL로 직렬화해 둔 쿼리에 값만 바인딩해서 실행한다.
+            CompiledQuery<MemberTeamDTO> query = compiledQueryCache.get(List.of("search", predicate.getShape()),
+                    () -> CompiledQuery.compile(em, queryFactory
+                            .select(teamDictionary.memberTeamDTO())
+                            .from(member)
+                            .where(predicate.getWhere())));
+            return query.fetch(em, predicate.getParams());
+        });
+    }
+
+    @Override
+    @ReadOnlyQueries
+    public Stream<MemberTeamDTO> streamSearch(MemberSearchCondition condition, int fetchSize) {
+        // fetch()는 모든 로우를 List에 담기 때문에 수백만 건이면 힙이 크게 튄다.
+        // stream()은 ScrollableResults(forward only)로 fetchSize만큼씩 읽어온다.
+        return predicateCompiler.compile(condition).applyTo(queryFactory
+                        .select(teamDictionary.memberTeamDTO())
+                        .from(member))
+                .orderBy(member.id.asc())
+                // JDBC fetch size (한 번에 DB에서 가져오는 로우 수)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                // 읽기 전용이므로 스냅샷을 만들지 않는다.
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .stream();
     }
 
     @Override
+    @ReadOnlyQueries
     public Page<MemberTeamDTO> searchPageSimple(MemberSearchCondition condition,
                                                 Pageable pageable) {
-        QueryResults<MemberTeamDTO> result = queryFactory
-                .select(new QMemberTeamDTO(
-                        member.id.as("memberId"),
-                        member.userName,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(userNameEq(condition.getUserName()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe()))
+        JPAQuery<MemberTeamDTO> query = predicateCompiler.compile(condition).applyTo(queryFactory
+                        .select(teamDictionary.memberTeamDTO())
+                        .from(member));
+        // fetchResults()는 deprecated, count 쿼리는 컨텐츠 쿼리에서 만든다.
+        JPAQuery<Long> countQuery = CountQueryDeriver.derive(em, query);
+
+        List<MemberTeamDTO> content = query
                 .offset(pageable.getOffset())
                 .limit(pageable.getPageSize())
-                .fetchResults();
-
-        List<MemberTeamDTO> content = result.getResults();
-        long total = result.getTotal();
+                .fetch();
+        long total = countQuery.fetchOne();
         return new PageImpl<>(content, pageable, total);
     }
 
     @Override
+    @ReadOnlyQueries
     public Page<MemberTeamDTO> searchPageComplex(MemberSearchCondition condition,
                                                  Pageable pageable,
                                                  String search) {
-        List<MemberTeamDTO> content = queryFactory
-                .select(new QMemberTeamDTO(
-                        member.id.as("memberId"),
-                        member.userName,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(userNameEq(condition.getUserName()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe()),
-                        searchKeyword(search))
-                .offset(pageable.getOffset())
-                .limit(pageable.getPageSize())
-                .orderBy(sort(pageable))
-                .fetch();
+        return searchPageComplex(condition, pageable, search, CountPolicy.EXACT);
+    }
+
+    @Override
+    @ReadOnlyQueries
+    public CountedPage<MemberTeamDTO> searchPageComplex(MemberSearchCondition condition,
+                                                        Pageable pageable,
+                                                        String search,
+                                                        CountPolicy countPolicy) {
+        MemberPredicate predicate = predicateCompiler.compile(condition, search);
+        MemberQueryShape shape = predicate.getShape();
+        Map<ParamExpression<?>, Object> params = predicate.getParams();
+        // 인덱스가 없는 정렬 키면 UnsupportedSortException (400)
+        OrderSpecifier<?>[] orderSpecifiers = sortRegistry.orderBy(pageable.getSort());
+        MemberIndexAdvisor.observeSort(shape, pageable.getSort());
+
+        // 컴파일된 쿼리는 조건의 모양 + 정렬마다 하나씩 만들어진다.
+        CompiledQuery<MemberTeamDTO> contentQuery = compiledQueryCache.get(
+                List.of("searchPageComplex", shape, pageable.getSort().toString()),
+                () -> CompiledQuery.compile(em, memberTeamQuery(predicate)
+                        .orderBy(orderSpecifiers)));
+        List<MemberTeamDTO> content = contentQuery.fetch(em, params,
+                pageable.getOffset(),
+                // NONE 정책이면 다음 페이지 여부를 알기 위해 하나 더 조회한다.
+                TotalCountResolver.contentLimit(pageable, countPolicy));
 
 
         // count 쿼리 (조건에 부합하는 로우의 총 개수를 얻는 것이기 때문에 페이징 미적용)
-        JPAQuery<Long> countQuery = queryFactory
-                // SQL 상으로는 count(member.id)와 동일
-                .select(member.count())
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(userNameEq(condition.getUserName()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe()),
-                        searchKeyword(search));
+        // 컨텐츠 쿼리에서 만든다. (팀 이름 조건도 member.team.id IN 이므로 team을 join하지 않는다.)
+        CompiledQuery<Long> countQuery = compiledQueryCache.get(
+                List.of("searchPageComplex.count", shape),
+                () -> CompiledQuery.compile(em, CountQueryDeriver.derive(em, memberTeamQuery(predicate))));
 
         // 페이지 시작이거나 컨텐츠의 사이즈가 페이지 사이즈보다 작거나
         // 마지막 페이지 일 대 카운트 쿼리를 호출하지 않는다.
-        return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchOne);
+        // count를 해야 하는 경우에는 정책에 따라 정확히 세거나(캐시 사용) 추정한다.
+        return totalCountResolver.getPage(content, pageable, countPolicy, PageCount.builder()
+                .countQuery(countQuery.toQuery(em, params))
+                .counter(() -> countQuery.fetchOne(em, params))
+                .id(member.id)
+                .scope("searchPageComplex")
+                .key(predicate.getKey())
+                .shape(shape)
+                .selective(shape.has(MemberQueryShape.USER_NAME) || shape.has(MemberQueryShape.KEYWORD_IDS))
+                .build());
        // return new PageImpl<>(content, pageable, total);
     }
 
-    // OrderSpecifier<?>는 QueryDSL에서 사용되는 정렬을 나타내는 클래스
-    // OrderSpecifier는 정렬의 종류와 방향을 나타내는 객체로, QueryDSL에서 쿼리를 작성할 때 사용됩니다.
-    // 즉, OrderSpecifier<?>를 사용하여 동적인 정렬을 표현할 수 있습니다.
-    private OrderSpecifier<?> sort(Pageable pageable) {
-        if (!pageable.getSort().isEmpty()) {
-            for (Order order : pageable.getSort()) {
-                // 정렬이 오름차순인지 여부를 확인하는 코드입니다.
-                // 맞다면 오름차순, 아니면 내림차순으로 진행합니다.
-                com.querydsl.core.types.Order direction = order.getDirection().isAscending()
-                        ? ASC : DESC;
-
-                switch (order.getProperty()) {
-                    case "memberId":
-                        return new OrderSpecifier<>(direction, member.id);
-                    case "userName":
-                        return new OrderSpecifier<>(direction, member.userName);
-                }
-            }
-        }
-        return member.id.desc();
+    // searchPageComplex의 컨텐츠 쿼리 (정렬, 페이징 제외)
+    private JPAQuery<MemberTeamDTO> memberTeamQuery(MemberPredicate predicate) {
+        return queryFactory
+                .select(teamDictionary.memberTeamDTO())
+                .from(member)
+                .where(predicate.getWhere());
+    }
+
+    // search2의 컨텐츠 쿼리 (정렬, 페이징 제외)
+    private JPAQuery<Member> memberWithTeamQuery(MemberPredicate predicate) {
+        return queryFactory
+                .selectFrom(member)
+                .join(member.team, team).fetchJoin()
+                .where(predicate.getWhere());
+    }
+
+    // search2의 컨텐츠 쿼리 + Pageable의 정렬 (MemberSortRegistry가 허용하는 키만)
+    private JPAQuery<Member> sortedMemberWithTeamQuery(MemberPredicate predicate, Sort pageSort) {
+        return memberWithTeamQuery(predicate)
+                .orderBy(sortRegistry.orderBy(pageSort));
     }
 
 
     @Override
     public Page<Member> search2(MemberSearchCondition condition,
                                 Pageable pageable) {
-        JPAQuery<Member> query = queryFactory
-                .selectFrom(member)
-                .join(member.team, team).fetchJoin()
-                .where(userNameEq(condition.getUserName()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe()))
-                .offset(pageable.getOffset())
-                .limit(pageable.getPageSize());
+        return search2(condition, pageable, CountPolicy.EXACT);
+    }
 
-        JPAQuery<Long> count = queryFactory
-                .select(member.count())
-                .from(member)
-                .where(userNameEq(condition.getUserName()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe()));
+    @Override
+    public CountedPage<Member> search2(MemberSearchCondition condition,
+                                       Pageable pageable,
+                                       CountPolicy countPolicy) {
+        MemberPredicate predicate = predicateCompiler.compile(condition);
+        MemberQueryShape shape = predicate.getShape();
+        Map<ParamExpression<?>, Object> params = predicate.getParams();
+        MemberIndexAdvisor.observeSort(shape, pageable.getSort());
 
-        for (Order order : pageable.getSort()) {
-            // PathBuilder는 주어진 엔터티의 동적인 경로를 생성하는 데 사용됩니다.
-            PathBuilder pathBuilder = new PathBuilder(
-                    // 엔티티의 타입 정보를 얻어온다.
-                    member.getType(),
-                    // 엔티티의 메타데이터를 얻어온다.
-                    member.getMetadata());
-            // Order 객체에서 정의된 속성에 해당하는 동적 경로를 얻어오게 됩니다.
-            // 예를 들어, 만약 order.getProperty()가 "userName"이라면,
-            // pathBuilder.get("userName")는 엔터티의 "userName" 속성에 대한 동적 경로를 반환하게 됩니다.
-            // 이 동적 경로는 QueryDSL에서 사용되어 정렬 조건을 만들 때 활용됩니다.
-            PathBuilder sort = pathBuilder.get(order.getProperty());
-
-            query.orderBy(
-                    new OrderSpecifier<>(
-                            order.isAscending() ? ASC : DESC,
-                            sort != null ? sort : member.id
-                    ));
+        String sortKey = pageable.getSort().toString();
+        long limit = TotalCountResolver.contentLimit(pageable, countPolicy);
+        List<Member> result;
+        if (idFirst) {
+            // 1단계 : 조건과 정렬로 member.id만 페이징 (fetch join 없이 좁은 로우만 정렬)
+            CompiledQuery<Long> idQuery = compiledQueryCache.get(
+                    List.of("search2.ids", shape, sortKey),
+                    () -> CompiledQuery.compile(em,
+                            IdFirstQueries.idQuery(em, sortedMemberWithTeamQuery(predicate, pageable.getSort()), member.id)));
+            List<Long> ids = idQuery.fetch(em, params, pageable.getOffset(), limit);
+            // 2단계 : 그 id들만 fetch join으로 한 번에 읽고 1단계 순서대로 정렬
+            result = IdFirstQueries.hydrate(em, memberWithTeamQuery(predicate), member.id, ids);
+        } else {
+            CompiledQuery<Member> query = compiledQueryCache.get(
+                    List.of("search2", shape, sortKey),
+                    () -> CompiledQuery.compile(em, sortedMemberWithTeamQuery(predicate, pageable.getSort())));
+            result = query.fetch(em, params, pageable.getOffset(), limit);
         }
-        List<Member> result = query.fetch();
-        return PageableExecutionUtils.getPage(result, pageable, count::fetchOne);
-    }
 
-    private BooleanExpression userNameEq(String userName) {
-        return hasText(userName) ? member.userName.eq(userName) : null;
+        // fetch join은 일반 inner join으로 바뀌어서 팀이 없는 회원은 컨텐츠와 같이 count에서도 빠진다.
+        CompiledQuery<Long> count = compiledQueryCache.get(
+                List.of("search2.count", shape),
+                () -> CompiledQuery.compile(em, CountQueryDeriver.derive(em, memberWithTeamQuery(predicate))));
+
+        return totalCountResolver.getPage(result, pageable, countPolicy, PageCount.builder()
+                .countQuery(count.toQuery(em, params))
+                .counter(() -> count.fetchOne(em, params))
+                .id(member.id)
+                .scope("search2")
+                .key(predicate.getKey())
+                .shape(shape)
+                .selective(shape.has(MemberQueryShape.USER_NAME) || shape.has(MemberQueryShape.KEYWORD_IDS))
+                .build());
     }
 
-    private BooleanExpression teamNameEq(String teamName) {
-        return hasText(teamName) ? team.name.eq(teamName) : null;
+    @Override
+    @ReadOnlyQueries
+    public CursorSlice<MemberTeamDTO> searchSliceByCursor(MemberSearchCondition condition,
+                                                          Pageable pageable,
+                                                          String cursor) {
+        // offset을 쓰면 앞 페이지의 로우를 모두 읽고 버리기 때문에 뒤 페이지로 갈수록 느려진다.
+        // 마지막으로 내려준 로우 다음부터 읽도록 조건을 걸어서 몇 번째 페이지든 비용이 같도록 한다.
+        Order order = keysetOrder(pageable);
+        MemberCursor after = hasText(cursor) ? MemberCursor.decode(cursor) : null;
+        if (after != null && !after.matches(order.getProperty(), order.isAscending())) {
+            throw new InvalidCursorException("커서의 정렬 기준이 요청한 정렬과 다릅니다. cursor : " + cursor);
+        }
+
+        int pageSize = pageable.getPageSize();
+        List<MemberTeamDTO> result = predicateCompiler.compile(condition).applyTo(queryFactory
+                        .select(teamDictionary.memberTeamDTO())
+                        .from(member))
+                .where(keysetAfter(order, after))
+                .orderBy(keysetSort(order))
+                // 다음 페이지 존재 여부를 알기 위해 하나 더 조회한다.
+                .limit(pageSize + 1)
+                .fetch();
+
+        boolean hasNext = result.size() > pageSize;
+        List<MemberTeamDTO> content = hasNext ? result.subList(0, pageSize) : result;
+        String nextCursor = hasNext
+                ? MemberCursor.of(order.getProperty(), order.isAscending(), content.get(pageSize - 1)).encode()
+                : null;
+        return new CursorSlice<>(content, PageRequest.of(0, pageSize, Sort.by(order)), hasNext, nextCursor);
     }
 
-    private BooleanExpression ageGoe(Integer ageGoe) {
-        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    // 키셋 페이징은 memberId, userName 정렬만 지원하고 나머지는 기본 정렬(memberId 내림차순)을 사용한다.
+    private Order keysetOrder(Pageable pageable) {
+        for (Order order : pageable.getSort()) {
+            if (order.getProperty().equals("memberId") || order.getProperty().equals("userName")) {
+                return order;
+            }
+        }
+        return Order.desc("memberId");
     }
 
-    private BooleanExpression ageLoe(Integer ageLoe) {
-        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    // userName은 중복될 수 있으므로 member.id를 두 번째 정렬 키로 사용해서 순서를 고정한다.
+    private OrderSpecifier<?>[] keysetSort(Order order) {
+        com.querydsl.core.types.Order direction = order.isAscending() ? ASC : DESC;
+        if (order.getProperty().equals("memberId")) {
+            return new OrderSpecifier<?>[]{new OrderSpecifier<>(direction, member.id)};
+        }
+        return new OrderSpecifier<?>[]{
+                new OrderSpecifier<>(direction, member.userName).nullsLast(),
+                new OrderSpecifier<>(direction, member.id)};
     }
 
-    private BooleanExpression searchKeyword(String search) {
-        // likeIgnoreCase는 QueryDSL에서 문자열에 대한 대소문자를 무시하고 부분 일치 검색을 수행하는 메서드입니다.
-        // 이 메서드는 SQL에서의 LIKE 연산과 유사하지만, 대소문자를 구분하지 않고 비교합니다.
-        return hasText(search) ? member.userName.likeIgnoreCase("%" + search + "%") : null;
+    // 커서 이후의 로우만 읽도록 하는 조건
+    private BooleanExpression keysetAfter(Order order, MemberCursor after) {
+        if (after == null) {
+            return null;
+        }
+        BooleanExpression idAfter = order.isAscending()
+                ? member.id.gt(after.getMemberId())
+                : member.id.lt(after.getMemberId());
+        if (order.getProperty().equals("memberId")) {
+            return idAfter;
+        }
+        // userName 정렬은 nullsLast라서 이름이 null인 회원은 항상 마지막 구간에 있다.
+        if (after.getUserName() == null) {
+            return member.userName.isNull().and(idAfter);
+        }
+        String lastName = after.getUserName();
+        BooleanExpression nameAfter = order.isAscending()
+                ? member.userName.gt(lastName)
+                : member.userName.lt(lastName);
+        return nameAfter
+                .or(member.userName.eq(lastName).and(idAfter))
+                .or(member.userName.isNull());
     }
 }
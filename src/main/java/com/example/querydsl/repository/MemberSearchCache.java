@@ -0,0 +1,82 @@
+package com.example.querydsl.repository;
+
+import com.example.querydsl.domain.MemberSearchCondition;
+import com.example.querydsl.domain.MemberSearchKey;
+import com.example.querydsl.domain.MemberTeamDTO;
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import com.example.querydsl.entity.listener.EntityChangeEvent;
+import com.example.querydsl.repository.support.CacheStats;
+import com.example.querydsl.repository.support.ExpiringCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * search(MemberSearchCondition) 결과 캐시
+ * 대시보드가 같은 몇 개의 조건으로 계속 호출하므로 정규화된 조건(MemberSearchKey)을 키로 결과 목록을 재사용합니다.
+ * 크기(LRU)와 TTL로 제한하고, Member/Team이 변경되면(벌크 update, delete 포함) 전부 비웁니다.
+ */
+@Component
+public class MemberSearchCache {
+    private final ExpiringCache<MemberSearchKey, List<MemberTeamDTO>> cache;
+
+    public MemberSearchCache(@Value("${query.search-cache.ttl:10s}") Duration ttl,
+                             @Value("${query.search-cache.max-size:500}") int maxSize) {
+        this.cache = new ExpiringCache<>(maxSize, ttl, MemberSearchCache::estimateBytes);
+    }
+
+    public List<MemberTeamDTO> getOrSearch(MemberSearchCondition condition, Supplier<List<MemberTeamDTO>> search) {
+        // 쓰기 트랜잭션 안에서는 아직 커밋하지 않은 변경이 결과에 섞일 수 있으므로 캐시를 거치지 않는다.
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return search.get();
+        }
+        return cache.getOrLoad(MemberSearchKey.of(condition), () -> List.copyOf(search.get()));
+    }
+
+    @EventListener
+    public void onEntityChange(EntityChangeEvent event) {
+        if (!event.isAbout(Member.class) && !event.isAbout(Team.class)) {
+            return;
+        }
+        cache.invalidateAll();
+        // 커밋 전에 다른 요청이 변경 전 데이터를 다시 캐시할 수 있으므로 트랜잭션이 끝난 뒤에 한 번 더 비운다.
+        // 대량 저장처럼 한 트랜잭션에서 변경이 많아도 콜백은 트랜잭션마다 하나만 등록한다.
+        if (TransactionSynchronizationManager.isSynchronizationActive()
+                && !TransactionSynchronizationManager.hasResource(this)) {
+            TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(MemberSearchCache.this);
+                    cache.invalidateAll();
+                }
+            });
+        }
+    }
+
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    // 대략적인 크기 (64bit, compressed oops 기준)
+    // 리스트 16 + 참조 4, DTO 32, Long 2개 32, 문자열 2개 각각 40 + 글자 수
+    private static long estimateBytes(List<MemberTeamDTO> rows) {
+        long bytes = 16 + 4L * rows.size();
+        for (MemberTeamDTO row : rows) {
+            bytes += 32 + 32 + stringBytes(row.getUserName()) + stringBytes(row.getTeamName());
+        }
+        return bytes;
+    }
+
+    private static long stringBytes(String value) {
+        return value != null ? 40 + value.length() : 0;
+    }
+}
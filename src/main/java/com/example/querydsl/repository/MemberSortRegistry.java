@@ -0,0 +1,164 @@
+package com.example.querydsl.repository;
+
+import com.example.querydsl.repository.support.UnsupportedSortException;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Order;
+import com.querydsl.core.types.OrderSpecifier;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.example.querydsl.entity.QMember.member;
+
+/**
+ * 회원 검색에서 허용하는 정렬 키와 미리 만들어둔 OrderSpecifier
+ * <p>
+ * 요청마다 PathBuilder로 정렬 경로를 만들면 엔티티의 어떤 속성으로든(인덱스가 없는 컬럼이어도) 정렬할 수 있었습니다.
+ * 여기서는 정렬 키마다 오름차순, 내림차순 OrderSpecifier를 시작할 때 한 번 만들어두고,
+ * JDBC 메타데이터로 그 컬럼을 첫 번째 컬럼으로 하는 인덱스가 있는 키만 허용합니다.
+ * 여러 컬럼 정렬을 지원하고, 같은 값끼리 순서가 바뀌지 않도록 항상 member.id를 마지막에 붙입니다.
+ * (인덱스를 거꾸로 읽을 수 있도록 마지막 정렬과 같은 방향)
+ */
+@Component
+@Log4j2
+public class MemberSortRegistry {
+    private static final String TABLE = "query_members";
+    // 정렬이 없을 때 (기존 기본값)
+    private static final OrderSpecifier<?>[] DEFAULT = {member.id.desc()};
+    // 같은 키를 반복하는 식으로 조합을 계속 바꿔도 캐시가 커지지 않도록 제한한다.
+    private static final int MAX_COMPILED = 256;
+
+    private final DataSource dataSource;
+    // 정렬 키 → 컬럼, 정렬할 표현식
+    private final Map<String, SortKey> keys = new LinkedHashMap<>();
+    // 인덱스가 있어서 허용하는 정렬 키
+    private volatile Set<String> allowed = Set.of();
+    // 검증이 끝난 정렬 → OrderSpecifier 배열
+    private final Map<Sort, OrderSpecifier<?>[]> compiled = new ConcurrentHashMap<>();
+
+    // EntityManagerFactory를 받는 것은 ddl-auto로 인덱스가 만들어진 뒤에 메타데이터를 읽기 위해서
+    public MemberSortRegistry(DataSource dataSource, EntityManagerFactory emf) {
+        this.dataSource = dataSource;
+        register(member.id, "member_id", "memberId", "id");
+        register(member.userName, "user_name", "userName");
+        register(member.age, "age", "age");
+        register(member.team.id, "team_id", "teamId");
+        refresh();
+    }
+
+    /**
+     * Sort를 OrderSpecifier 배열로 바꾼다. (마지막은 항상 member.id)
+     *
+     * @throws UnsupportedSortException 등록되지 않았거나 인덱스가 없는 정렬 키
+     */
+    public OrderSpecifier<?>[] orderBy(Sort sort) {
+        if (sort.isEmpty()) {
+            return DEFAULT;
+        }
+        OrderSpecifier<?>[] orders = compiled.get(sort);
+        if (orders == null) {
+            orders = compile(sort);
+            if (compiled.size() < MAX_COMPILED) {
+                compiled.put(sort, orders);
+            }
+        }
+        return orders;
+    }
+
+    public Set<String> getAllowedKeys() {
+        return allowed;
+    }
+
+    // 인덱스 메타데이터를 다시 읽는다. (MemberIndexAdvisor가 인덱스를 만든 뒤 등)
+    public void refresh() {
+        Set<String> indexed = leadingIndexColumns();
+        Set<String> allowedKeys = new TreeSet<>();
+        keys.forEach((name, key) -> {
+            if (indexed.contains(key.column)) {
+                allowedKeys.add(name);
+            }
+        });
+        allowed = Set.copyOf(allowedKeys);
+        compiled.clear();
+        log.info("정렬할 수 있는 키 : {}", allowedKeys);
+    }
+
+    private OrderSpecifier<?>[] compile(Sort sort) {
+        List<OrderSpecifier<?>> orders = new ArrayList<>(4);
+        Set<String> columns = new HashSet<>();
+        boolean ascending = true;
+        for (Sort.Order order : sort) {
+            SortKey key = keys.get(order.getProperty());
+            if (key == null || !allowed.contains(order.getProperty())) {
+                throw new UnsupportedSortException("정렬할 수 없는 속성입니다. : " + order.getProperty()
+                        + " (사용할 수 있는 속성 : " + allowed + ")");
+            }
+            if (columns.add(key.column)) {
+                orders.add(order.isAscending() ? key.asc : key.desc);
+            }
+            ascending = order.isAscending();
+        }
+        if (columns.add("member_id")) {
+            SortKey id = keys.get("memberId");
+            orders.add(ascending ? id.asc : id.desc);
+        }
+        return orders.toArray(new OrderSpecifier<?>[0]);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void register(Expression<? extends Comparable<?>> expression, String column, String... names) {
+        SortKey key = new SortKey(column,
+                new OrderSpecifier(Order.ASC, expression),
+                new OrderSpecifier(Order.DESC, expression));
+        for (String name : names) {
+            keys.put(name, key);
+        }
+    }
+
+    // 회원 테이블의 인덱스(기본 키 포함)에서 첫 번째 컬럼들 (소문자)
+    private Set<String> leadingIndexColumns() {
+        Set<String> columns = new HashSet<>();
+        try (Connection connection = dataSource.getConnection()) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            String table = metaData.storesUpperCaseIdentifiers() ? TABLE.toUpperCase(Locale.ROOT) : TABLE;
+            try (ResultSet primaryKeys = metaData.getPrimaryKeys(null, null, table)) {
+                while (primaryKeys.next()) {
+                    if (primaryKeys.getShort("KEY_SEQ") == 1) {
+                        columns.add(primaryKeys.getString("COLUMN_NAME").toLowerCase(Locale.ROOT));
+                    }
+                }
+            }
+            try (ResultSet indexes = metaData.getIndexInfo(null, null, table, false, true)) {
+                while (indexes.next()) {
+                    String column = indexes.getString("COLUMN_NAME");
+                    if (indexes.getShort("ORDINAL_POSITION") == 1 && column != null) {
+                        columns.add(column.toLowerCase(Locale.ROOT));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new CannotGetJdbcConnectionException("회원 테이블의 인덱스 정보를 읽을 수 없습니다.", e);
+        }
+        return columns;
+    }
+
+    private record SortKey(String column, OrderSpecifier<?> asc, OrderSpecifier<?> desc) {
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.querydsl.repository;
+
+import com.example.querydsl.domain.MemberTeamDTO;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpressionBase;
+import com.querydsl.core.types.Visitor;
+
+import java.util.List;
+
+import static com.example.querydsl.entity.QMember.member;
+
+/**
+ * team을 join하지 않는 MemberTeamDTO 프로젝션
+ * select 절에는 member.team.id(회원 테이블의 team_id 컬럼)까지만 넣고, 팀 이름은 TeamDictionary에서 채웁니다.
+ * QMemberTeamDTO 대신 select()에 그대로 넘기면 됩니다.
+ */
+public class MemberTeamProjection extends FactoryExpressionBase<MemberTeamDTO> {
+    private static final List<Expression<?>> ARGS = List.of(
+            member.id,
+            member.userName,
+            member.age,
+            member.team.id);
+
+    private final transient TeamDictionary teamDictionary;
+
+    MemberTeamProjection(TeamDictionary teamDictionary) {
+        super(MemberTeamDTO.class);
+        this.teamDictionary = teamDictionary;
+    }
+
+    @Override
+    public List<Expression<?>> getArgs() {
+        return ARGS;
+    }
+
+    @Override
+    public MemberTeamDTO newInstance(Object... args) {
+        Long teamId = (Long) args[3];
+        return MemberTeamDTO.builder()
+                .memberId((Long) args[0])
+                .userName((String) args[1])
+                .age(args[2] != null ? (Integer) args[2] : 0)
+                .teamId(teamId)
+                .teamName(teamDictionary.nameOf(teamId))
+                .build();
+    }
+
+    @Override
+    public <R, C> R accept(Visitor<R, C> v, C context) {
+        return v.visit(this, context);
+    }
+}
@@ -1,26 +1,45 @@
 package com.example.querydsl.repository;
 
 import com.example.querydsl.domain.MemberSearchCondition;
+import com.example.querydsl.domain.MemberTeamDTO;
 import com.example.querydsl.entity.Member;
 import com.example.querydsl.entity.QMember;
+import com.example.querydsl.repository.support.CountPolicy;
+import com.example.querydsl.repository.support.CountedPage;
 import com.example.querydsl.repository.support.Querydsl4RepositorySupport;
-import com.querydsl.core.types.dsl.BooleanExpression;
+import com.example.querydsl.repository.support.ReadOnlyQueries;
 import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.function.Function;
 
 import static com.example.querydsl.entity.QMember.member;
 import static com.example.querydsl.entity.QTeam.team;
-import static org.springframework.util.StringUtils.hasText;
 
 @Repository
 public class MemberTestRepository extends Querydsl4RepositorySupport {
-    public MemberTestRepository() {
+    private final MemberPredicateCompiler predicateCompiler;
+    private final TeamDictionary teamDictionary;
+    // MemberTeamDTO 필드 이름(memberId, userName, age, teamId) 정렬도 인덱스가 있는 키만 허용한다.
+    private final MemberSortRegistry sortRegistry;
+    // applyPagination2를 id 먼저 페이징(2단계)으로 실행할지 여부
+    private final boolean idFirst;
+
+    public MemberTestRepository(MemberPredicateCompiler predicateCompiler,
+                                TeamDictionary teamDictionary,
+                                MemberSortRegistry sortRegistry,
+                                @Value("${query.pagination.id-first:true}") boolean idFirst) {
         super(Member.class);
+        this.predicateCompiler = predicateCompiler;
+        this.teamDictionary = teamDictionary;
+        this.sortRegistry = sortRegistry;
+        this.idFirst = idFirst;
     }
 
     public List<Member> basicSelect() {
@@ -35,74 +54,63 @@ public class MemberTestRepository extends Querydsl4RepositorySupport {
     }
 
     public Page<Member> searchPageByApplyPage(MemberSearchCondition condition, Pageable pageable) {
-        JPAQuery<Member> query = selectFrom(member)
-                .leftJoin(member.team, team)
-                .where(userNameEq(condition.getUserName()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe()));
+        MemberPredicate predicate = predicateCompiler.compile(condition);
+        // 팀 이름 조건도 member.team.id IN 이므로 team을 join하지 않는다.
+        JPAQuery<Member> query = predicate.applyTo(selectFrom(member));
 
         // count 쿼리 (조건에 부합하는 로우의 총 개수를 얻는 것이기 때문에 페이징 미적용)
-        JPAQuery<Long> countQuery =
-                // SQL 상으로는 count(member.id)와 동일
-                select(member.count())
-                        .from(member)
-                        .leftJoin(member.team, team)
-                        .where(userNameEq(condition.getUserName()),
-                                teamNameEq(condition.getTeamName()),
-                                ageGoe(condition.getAgeGoe()),
-                                ageLoe(condition.getAgeLoe()));
+        JPAQuery<Long> countQuery = countQueryOf(query);
 
         // 페이징이랑 sort 지원
         List<Member> content = getQuerydsl().applyPagination(pageable, query).fetch();
-        return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchOne);
+        return PageableExecutionUtils.getPage(content, pageable, cachedCount(countQuery));
     }
 
     // count처리를 하지 않은 것
     public Page<Member> applyPagination(MemberSearchCondition condition, Pageable pageable) {
+        MemberPredicate predicate = predicateCompiler.compile(condition);
         return applyPagination(pageable, query ->
-                query.selectFrom(member)
-                        .join(member.team, team).fetchJoin()
-                        .where(userNameEq(condition.getUserName()),
-                                teamNameEq(condition.getTeamName()),
-                                ageGoe(condition.getAgeGoe()),
-                                ageLoe(condition.getAgeLoe())
-                        )
+                predicate.applyTo(query.selectFrom(member)
+                        .join(member.team, team).fetchJoin())
         );
     }
 
     // count처리 까지 한것
     public Page<Member> applyPagination2(MemberSearchCondition condition, Pageable pageable) {
-        return applyPagination(pageable, contentQuery ->
-                contentQuery.selectFrom(member)
-                        .join(member.team, team).fetchJoin()
-                        .where(userNameEq(condition.getUserName()),
-                                teamNameEq(condition.getTeamName()),
-                                ageGoe(condition.getAgeGoe()),
-                                ageLoe(condition.getAgeLoe())
-                        ), countQuery -> countQuery
-                .select(member.count())
-                .from(member)
-                .where(userNameEq(condition.getUserName()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe()))
+        MemberPredicate predicate = predicateCompiler.compile(condition);
+        Function<JPAQueryFactory, JPAQuery> contentQuery = query ->
+                predicate.applyTo(query.selectFrom(member)
+                        .join(member.team, team).fetchJoin());
+        if (idFirst) {
+            // member.id만 먼저 페이징하고, 그 id들을 fetch join으로 한 번에 읽는다.
+            return applyIdFirstPagination(pageable, contentQuery);
+        }
+        // count 쿼리는 컨텐츠 쿼리에서 만든다. (fetch join은 일반 join으로 바뀐다.)
+        return applyPagination(pageable, contentQuery,
+                countQuery -> countQueryOf(contentQuery.apply(countQuery))
         );
     }
 
-    private BooleanExpression userNameEq(String userName) {
-        return hasText(userName) ? member.userName.eq(userName) : null;
-    }
-
-    private BooleanExpression teamNameEq(String teamName) {
-        return hasText(teamName) ? team.name.eq(teamName) : null;
-    }
-
-    private BooleanExpression ageGoe(Integer ageGoe) {
-        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    // 엔티티 대신 MemberTeamDTO를 바로 조회하는 페이징
+    // 정렬은 MemberSortRegistry로 검증하고 인덱스가 없는 키는 UnsupportedSortException (400)
+    // DTO만 반환하므로 읽기 전용으로 실행한다. (엔티티를 반환하는 위 메서드들은 더티 체킹을 그대로 둔다.)
+    @ReadOnlyQueries
+    public Page<MemberTeamDTO> searchProjectionPage(MemberSearchCondition condition, Pageable pageable) {
+        MemberPredicate predicate = predicateCompiler.compile(condition);
+        MemberIndexAdvisor.observeSort(predicate.getShape(), pageable.getSort());
+        return applyProjectionPagination(pageable, query ->
+                predicate.applyTo(query.select(teamDictionary.memberTeamDTO())
+                        .from(member)), sortRegistry::orderBy);
     }
 
-    private BooleanExpression ageLoe(Integer ageLoe) {
-        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    @ReadOnlyQueries
+    public CountedPage<MemberTeamDTO> searchProjectionPage(MemberSearchCondition condition,
+                                                           Pageable pageable,
+                                                           CountPolicy countPolicy) {
+        MemberPredicate predicate = predicateCompiler.compile(condition);
+        MemberIndexAdvisor.observeSort(predicate.getShape(), pageable.getSort());
+        return applyProjectionPagination(pageable, query ->
+                predicate.applyTo(query.select(teamDictionary.memberTeamDTO())
+                        .from(member)), sortRegistry::orderBy, countPolicy);
     }
 }
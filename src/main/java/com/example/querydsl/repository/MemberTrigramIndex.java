@@ -0,0 +1,355 @@
+package com.example.querydsl.repository;
+
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.listener.EntityChangeEvent;
+import com.example.querydsl.repository.support.AfterCommitBuffer;
+import com.example.querydsl.repository.support.ProfiledJPAQuery;
+import com.querydsl.core.Tuple;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.log4j.Log4j2;
+import org.hibernate.Session;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static com.example.querydsl.entity.QMember.member;
+
+/**
+ * userName 부분 일치(keyword) 검색용 트라이그램 인메모리 인덱스
+ * <p>
+ * likeIgnoreCase("%keyword%")는 앞에 %가 있어서 인덱스를 쓸 수 없으므로 매번 전체 로우에 lower()를 적용하며 스캔합니다.
+ * 여기서는 소문자 userName의 3글자 조각(트라이그램)마다 회원 id를 정렬된 long[]로 가지고 있다가,
+ * keyword의 트라이그램 목록을 교집합해서 후보 id를 구합니다. (MemberPredicateCompiler가 member.id IN 조건으로 추가)
+ * <p>
+ * 트라이그램이 모두 있어도 연속해서 나오지 않을 수 있으므로 LIKE 조건은 그대로 두고 후보 로우에만 적용됩니다.
+ * 그래서 인덱스에 남아있는 오래된 id(이름 변경 전 트라이그램)는 결과에 영향이 없고, 빠진 id만 없으면 됩니다.
+ * 1. 시작할 때 전체를 읽어서 만들고
+ * 2. 회원 저장, 수정, 삭제는 커밋 후에 반영하고 (트랜잭션마다 모아서 한 번에)
+ * 3. 벌크 연산(STATEMENT, BulkStatements로 실행한 update/delete)은 어떤 로우가 바뀌었는지 모르므로
+ *    백그라운드에서 다시 만들고, 그동안은 사용하지 않습니다. (엔티티 수정, 삭제는 2번으로 반영)
+ * keyword가 3글자보다 짧거나, 후보가 max-candidates보다 많으면 null을 반환하고 기존처럼 LIKE로만 검색합니다.
+ * <p>
+ * 이 애플리케이션(인스턴스 하나)만 query_members에 쓴다고 가정합니다. 변경은 이 프로세스의 엔티티 이벤트로만 들어오므로
+ * 다른 인스턴스나 SQL 콘솔에서 바꾼 회원은 다음 전체 재구성(rebuild) 전까지 후보에서 빠질 수 있습니다.
+ * 아직 커밋되지 않은 변경도 보이지 않으므로 쓰기 트랜잭션 안의 검색은 MemberPredicateCompiler가 인덱스를 건너뜁니다.
+ */
+@Component
+@Log4j2
+public class MemberTrigramIndex implements DisposableBean {
+    private static final int GRAM = 3;
+    private static final long[] EMPTY = new long[0];
+
+    private final EntityManagerFactory emf;
+    private final boolean enabled;
+    private final int maxCandidates;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // 트라이그램(글자 3개를 long 하나에) -> 회원 id 목록
+    private Map<Long, Postings> postings = new HashMap<>();
+    private volatile boolean ready;
+    // 다시 만드는 동안 커밋된 변경 (다 만든 뒤에 다시 적용한다.)
+    private List<Change> changesDuringRebuild;
+    // 벌크 연산이 여러 번 커밋돼도 다시 만드는 작업은 하나만 예약한다.
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+    // 벌크 연산이 커밋될 때마다 올라간다. 다시 만드는 중에 올라가면 끝나도 ready가 되지 않는다.
+    private final AtomicLong generation = new AtomicLong();
+    private final ExecutorService rebuilder = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "member-trigram-index");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public MemberTrigramIndex(EntityManagerFactory emf,
+                              @Value("${query.keyword-index.enabled:true}") boolean enabled,
+                              @Value("${query.keyword-index.max-candidates:1000}") int maxCandidates) {
+        this.emf = emf;
+        this.enabled = enabled;
+        this.maxCandidates = maxCandidates;
+    }
+
+    /**
+     * keyword를 포함할 수 있는 회원 id (오름차순)
+     * 인덱스를 사용할 수 없거나 후보가 너무 많으면 null
+     */
+    public long[] candidates(String keyword) {
+        if (!ready || keyword == null || keyword.length() < GRAM
+                // LIKE 와일드카드가 들어있으면 부분 일치가 아니다.
+                || keyword.indexOf('%') >= 0 || keyword.indexOf('_') >= 0) {
+            return null;
+        }
+        long[] grams = trigrams(keyword.toLowerCase(Locale.ROOT));
+        lock.readLock().lock();
+        try {
+            List<Postings> lists = new ArrayList<>(grams.length);
+            for (long gram : grams) {
+                Postings list = postings.get(gram);
+                if (list == null) {
+                    return EMPTY;
+                }
+                lists.add(list);
+            }
+            // 짧은 목록부터 교집합하면 비교 횟수가 줄어든다.
+            lists.sort(Comparator.comparingInt(list -> list.size));
+            long[] result = Arrays.copyOf(lists.get(0).ids, lists.get(0).size);
+            int size = result.length;
+            for (int i = 1; i < lists.size() && size > 0; i++) {
+                size = lists.get(i).retainAll(result, size);
+            }
+            return size > maxCandidates ? null : Arrays.copyOf(result, size);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (enabled) {
+            rebuild(this::load);
+        }
+    }
+
+    // loader가 (회원 id, userName)을 id 오름차순으로 넘겨주면 새로 만든다. (테스트에서는 DB 없이 넘겨준다.)
+    void rebuild(Consumer<BiConsumer<Long, String>> loader) {
+        lock.writeLock().lock();
+        try {
+            changesDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        long startGeneration = generation.get();
+        long start = System.nanoTime();
+        Map<Long, Postings> rebuilt = new HashMap<>();
+        try {
+            loader.accept((id, userName) -> add(rebuilt, id, userName));
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                changesDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+        rebuilt.values().forEach(Postings::trim);
+
+        lock.writeLock().lock();
+        try {
+            postings = rebuilt;
+            changesDuringRebuild.forEach(this::apply);
+            changesDuringRebuild = null;
+            ready = generation.get() == startGeneration;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("member trigram index built. trigrams : {}, {}ms",
+                rebuilt.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void load(BiConsumer<Long, String> target) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            em.unwrap(Session.class).setDefaultReadOnly(true);
+            // id 순서대로 읽으므로 목록에는 항상 뒤에 추가된다.
+            try (Stream<Tuple> stream = new ProfiledJPAQuery<Tuple>(em)
+                    .select(member.id, member.userName)
+                    .from(member)
+                    .orderBy(member.id.asc())
+                    .setHint(HibernateHints.HINT_FETCH_SIZE, 1000)
+                    .stream()) {
+                stream.forEach(row -> target.accept(row.get(member.id), row.get(member.userName)));
+            }
+        } finally {
+            em.close();
+        }
+    }
+
+    // 롤백된 변경이 들어가지 않도록 커밋 후에 반영한다. 대량 저장도 트랜잭션마다 콜백은 하나만 등록한다.
+    @EventListener
+    public void onEntityChange(EntityChangeEvent event) {
+        if (!enabled || !event.isAbout(Member.class)) {
+            return;
+        }
+        AfterCommitBuffer.add(this, Change.of(event), this::commit);
+    }
+
+    private void commit(List<Change> changes) {
+        if (changes.stream().anyMatch(change -> change.action == EntityChangeEvent.Action.STATEMENT)) {
+            // 벌크 연산은 어떤 로우가 바뀌었는지 모르므로 다시 만든다.
+            requestRebuild();
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.addAll(changes);
+            }
+            changes.forEach(this::apply);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // 다시 만들 때까지는 후보를 주지 않는다. (바뀐 이름의 트라이그램이 빠져 있을 수 있다.)
+    private void requestRebuild() {
+        generation.incrementAndGet();
+        ready = false;
+        if (rebuildScheduled.compareAndSet(false, true)) {
+            rebuilder.execute(() -> {
+                // 다시 만드는 중에 들어온 벌크 연산은 한 번 더 예약한다.
+                rebuildScheduled.set(false);
+                try {
+                    rebuild();
+                } catch (RuntimeException e) {
+                    log.warn("member trigram index rebuild failed", e);
+                }
+            });
+        }
+    }
+
+    @Override
+    public void destroy() {
+        rebuilder.shutdownNow();
+    }
+
+    private void apply(Change change) {
+        if (change.id == null || change.userName == null) {
+            return;
+        }
+        if (change.action == EntityChangeEvent.Action.REMOVE) {
+            for (long gram : trigrams(change.userName.toLowerCase(Locale.ROOT))) {
+                Postings list = postings.get(gram);
+                if (list != null && list.remove(change.id) && list.size == 0) {
+                    postings.remove(gram);
+                }
+            }
+        } else {
+            // 이름이 바뀐 경우 이전 트라이그램은 남지만 LIKE 조건이 걸러준다.
+            add(postings, change.id, change.userName);
+        }
+    }
+
+    private static void add(Map<Long, Postings> target, Long id, String userName) {
+        if (id == null || userName == null) {
+            return;
+        }
+        for (long gram : trigrams(userName.toLowerCase(Locale.ROOT))) {
+            target.computeIfAbsent(gram, key -> new Postings()).add(id);
+        }
+    }
+
+    // 중복을 제거한 트라이그램 목록 (글자 3개를 16비트씩 long 하나에 담는다.)
+    static long[] trigrams(String text) {
+        if (text.length() < GRAM) {
+            return EMPTY;
+        }
+        long[] grams = new long[text.length() - GRAM + 1];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = ((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2);
+        }
+        return Arrays.stream(grams).distinct().toArray();
+    }
+
+    private record Change(Long id, String userName, EntityChangeEvent.Action action) {
+        private static Change of(EntityChangeEvent event) {
+            Member changed = (Member) event.getEntity();
+            return changed != null
+                    ? new Change(changed.getId(), changed.getUserName(), event.getAction())
+                    : new Change(null, null, event.getAction());
+        }
+    }
+
+    // 트라이그램 하나의 회원 id 목록 (오름차순, 중복 없음)
+    private static final class Postings {
+        private long[] ids = new long[4];
+        private int size;
+
+        private void add(long id) {
+            if (size == 0 || id > ids[size - 1]) {
+                // 시퀀스로 만든 id는 대부분 마지막보다 크다.
+                grow();
+                ids[size++] = id;
+                return;
+            }
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) {
+                return;
+            }
+            int insert = -index - 1;
+            grow();
+            System.arraycopy(ids, insert, ids, insert + 1, size - insert);
+            ids[insert] = id;
+            size++;
+        }
+
+        private boolean remove(long id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+            size--;
+            return true;
+        }
+
+        // candidates[0, size) 중 이 목록에 있는 것만 앞으로 모으고 남은 개수를 반환한다.
+        private int retainAll(long[] candidates, int candidateSize) {
+            int kept = 0;
+            int from = 0;
+            for (int i = 0; i < candidateSize && from < size; i++) {
+                int index = Arrays.binarySearch(ids, from, size, candidates[i]);
+                if (index >= 0) {
+                    candidates[kept++] = candidates[i];
+                    from = index + 1;
+                } else {
+                    from = -index - 1;
+                }
+            }
+            return kept;
+        }
+
+        private void grow() {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+            }
+        }
+
+        private void trim() {
+            if (ids.length != size) {
+                ids = Arrays.copyOf(ids, size);
+            }
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.querydsl.repository;
+
+import com.example.querydsl.entity.Team;
+import com.example.querydsl.entity.listener.EntityChangeEvent;
+import jakarta.persistence.EntityManager;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * 팀 id ↔ 팀 이름 인메모리 사전
+ * <p>
+ * 팀은 몇 개 되지 않는데 회원 조회마다 team을 join해서 이름만 읽고 있었습니다.
+ * 시작할 때 전부 읽어두고, 팀이 변경되면(커밋 후) 새 맵을 만들어서 통째로 바꿉니다. (copy-on-write)
+ * 읽는 쪽은 락 없이 volatile 참조 하나만 읽습니다.
+ * 사전에 없는 팀(아직 커밋되지 않은 팀 등)은 현재 EntityManager로 찾아봅니다.
+ * 사전은 팀 이름을 채우는 데만 쓰고, 팀 이름으로 id를 찾는 검색 조건은 항상 DB에서 읽습니다.
+ */
+@Component
+@Log4j2
+public class TeamDictionary {
+    private final EntityManager em;
+    private final MemberTeamProjection memberTeamProjection = new MemberTeamProjection(this);
+    private volatile Snapshot snapshot = Snapshot.of(Map.of());
+
+    public TeamDictionary(EntityManager em) {
+        this.em = em;
+    }
+
+    public String nameOf(Long teamId) {
+        if (teamId == null) {
+            return null;
+        }
+        String name = snapshot.namesById.get(teamId);
+        if (name == null && em != null) {
+            Team team = em.find(Team.class, teamId);
+            return team != null ? team.getName() : null;
+        }
+        return name;
+    }
+
+    // 이름 → id는 검색 조건이 되므로 사전을 쓰지 않고 항상 DB에서 찾는다.
+    // 사전은 커밋 후에야 바뀌어서 현재 트랜잭션에서 만들거나 이름을 바꾼 팀, 다른 프로세스가 바꾼 팀을 놓칠 수 있다.
+    // (이름 표시는 조금 늦어도 되지만 필터가 틀리면 결과가 빠진다.) team은 작은 테이블이라 쿼리 하나면 된다.
+    public List<Long> idsOf(String teamName) {
+        if (teamName == null || em == null) {
+            return Collections.emptyList();
+        }
+        return em.createQuery("select t.id from Team t where t.name = :name", Long.class)
+                .setParameter("name", teamName)
+                .getResultList();
+    }
+
+    // member.id, userName, age, team.id만 조회하고 팀 이름은 사전에서 채우는 MemberTeamDTO 프로젝션
+    public MemberTeamProjection memberTeamDTO() {
+        return memberTeamProjection;
+    }
+
+    public int size() {
+        return snapshot.namesById.size();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reload() {
+        List<Object[]> rows = em.createQuery("select t.id, t.name from Team t", Object[].class)
+                .getResultList();
+        Map<Long, String> names = new HashMap<>(rows.size() * 2);
+        for (Object[] row : rows) {
+            names.put((Long) row[0], (String) row[1]);
+        }
+        replace(names);
+        log.info("team dictionary loaded. teams : " + names.size());
+    }
+
+    public synchronized void replace(Map<Long, String> namesById) {
+        snapshot = Snapshot.of(new HashMap<>(namesById));
+    }
+
+    // 롤백된 변경이 사전에 들어가지 않도록 커밋 후에 반영한다. (트랜잭션 밖의 변경은 바로 반영)
+    // @TransactionalEventListener는 Member 이벤트까지 건마다 동기화 콜백을 등록하므로 Team 이벤트만 직접 등록한다.
+    @EventListener
+    public void onEntityChange(EntityChangeEvent event) {
+        if (!event.isAbout(Team.class)) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(event);
+                }
+            });
+        } else {
+            apply(event);
+        }
+    }
+
+    private void apply(EntityChangeEvent event) {
+        if (event.getAction() == EntityChangeEvent.Action.STATEMENT) {
+            // 벌크 연산은 어떤 팀이 바뀌었는지 모르므로 다시 읽는다.
+            reload();
+            return;
+        }
+        Team team = (Team) event.getEntity();
+        if (event.getAction() == EntityChangeEvent.Action.REMOVE) {
+            update(names -> names.remove(team.getId()));
+        } else {
+            update(names -> names.put(team.getId(), team.getName()));
+        }
+    }
+
+    private synchronized void update(Consumer<Map<Long, String>> change) {
+        Map<Long, String> names = new HashMap<>(snapshot.namesById);
+        change.accept(names);
+        snapshot = Snapshot.of(names);
+    }
+
+    private static final class Snapshot {
+        private final Map<Long, String> namesById;
+
+        private Snapshot(Map<Long, String> namesById) {
+            this.namesById = namesById;
+        }
+
+        // 이름이 없는(null) 팀은 불변 맵에 넣을 수 없으므로 사전에서 빼고, 조회할 때 EntityManager로 찾게 둔다.
+        private static Snapshot of(Map<Long, String> namesById) {
+            Map<Long, String> names = new HashMap<>(namesById.size() * 2);
+            namesById.forEach((id, name) -> {
+                if (id != null && name != null) {
+                    names.put(id, name);
+                }
+            });
+            return new Snapshot(Map.copyOf(names));
+        }
+    }
+}
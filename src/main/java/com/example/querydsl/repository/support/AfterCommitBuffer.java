@@ -0,0 +1,49 @@
+package com.example.querydsl.repository.support;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 트랜잭션 안에서 생긴 변경을 모아두었다가 커밋된 뒤에 한 번에 넘겨주는 유틸리티
+ * <p>
+ * 인메모리 인덱스(MemberTrigramIndex, MemberAutocomplete)가 롤백된 변경을 반영하지 않도록 사용합니다.
+ * 대량 저장처럼 한 트랜잭션에서 변경이 많아도 동기화 콜백은 owner별로 트랜잭션마다 하나만 등록합니다.
+ * 트랜잭션 밖의 변경은 바로 넘겨줍니다.
+ */
+public final class AfterCommitBuffer {
+
+    private AfterCommitBuffer() {
+    }
+
+    /**
+     * @param owner    트랜잭션 리소스 키 (보통 변경을 받는 빈 자신)
+     * @param onCommit 커밋된 뒤에 모은 변경을 받는 콜백 (커밋한 스레드에서 호출된다.)
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> void add(Object owner, T change, Consumer<List<T>> onCommit) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            onCommit.accept(List.of(change));
+            return;
+        }
+        List<T> pending = (List<T>) TransactionSynchronizationManager.getResource(owner);
+        if (pending == null) {
+            List<T> changes = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(owner, changes);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(owner);
+                    if (status == STATUS_COMMITTED) {
+                        onCommit.accept(changes);
+                    }
+                }
+            });
+            pending = changes;
+        }
+        pending.add(change);
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.querydsl.repository.support;
+
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.jpa.impl.JPADeleteClause;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import jakarta.persistence.EntityManager;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+import java.util.function.LongBinaryOperator;
+
+/**
+ * Querydsl 벌크 update / delete를 id 구간으로 나눠서 실행하는 컴포넌트
+ * <p>
+ * queryFactory.update(member)...execute()는 조건에 맞는 전체 로우를 문장 하나로 바꾸기 때문에
+ * 그동안 락을 오래 잡고 있고, 영속성 컨텍스트는 em.flush(), em.clear()를 하기 전까지 바뀌기 전 값을 들고 있습니다.
+ * 여기서는 id 오름차순으로 chunk-size개씩 (lastId, chunkEndId] 구간을 잡아서 구간마다 트랜잭션 하나로 실행하고,
+ * 청크 사이에 throttle만큼 쉽니다.
+ * <p>
+ * - 시작할 때 조건에 맞는 가장 큰 id까지만 처리하므로 도중에 추가된 로우는 건드리지 않는다.
+ * - 청크 전에 flush, 청크 후에 clear 해서 영속성 컨텍스트가 DB와 어긋나지 않게 한다.
+ * - 캐시(count, 검색 결과, 팀 사전)는 SqlStatementInspector가 벌크 문장마다 보내는 이벤트로 비워진다. (BulkStatements)
+ * - 호출하는 쪽의 트랜잭션 안에서는 실행하지 않는다. (IllegalStateException)
+ *   그 트랜잭션에 참여하면 청크별로 커밋되지 않고, 청크마다 하는 em.clear()가 호출한 쪽의 엔티티까지 준영속으로 만든다.
+ */
+@Component
+@Log4j2
+public class BulkMutationExecutor {
+    private final EntityManager em;
+    private final TransactionTemplate transactionTemplate;
+    private final int defaultChunkSize;
+    // 청크 사이에 쉬는 시간, 실행 중에도 바꿀 수 있다.
+    private volatile Duration throttle;
+
+    public BulkMutationExecutor(EntityManager em,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${query.bulk.chunk-size:1000}") int defaultChunkSize,
+                                @Value("${query.bulk.throttle:0ms}") Duration throttle) {
+        this.em = em;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.defaultChunkSize = defaultChunkSize;
+        this.throttle = throttle;
+    }
+
+    public void setThrottle(Duration throttle) {
+        this.throttle = throttle;
+    }
+
+    public Duration getThrottle() {
+        return throttle;
+    }
+
+    // ex) update(member, member.id, member.age.lt(28), update -> update.set(member.userName, "비회원"))
+    public BulkMutationResult update(EntityPath<?> entity, NumberPath<Long> id, Predicate where,
+                                     Consumer<JPAUpdateClause> set) {
+        return update(entity, id, where, set, defaultChunkSize, null);
+    }
+
+    public BulkMutationResult update(EntityPath<?> entity, NumberPath<Long> id, Predicate where,
+                                     Consumer<JPAUpdateClause> set,
+                                     int chunkSize, Consumer<BulkMutationResult> progress) {
+        return execute(entity, id, where, chunkSize, progress, (after, upTo) -> {
+            JPAUpdateClause update = new JPAUpdateClause(em, entity);
+            set.accept(update);
+            JPAUpdateClause chunk = update.where(where, range(id, after, upTo));
+            return BulkStatements.execute(chunk::execute);
+        });
+    }
+
+    public BulkMutationResult delete(EntityPath<?> entity, NumberPath<Long> id, Predicate where) {
+        return delete(entity, id, where, defaultChunkSize, null);
+    }
+
+    public BulkMutationResult delete(EntityPath<?> entity, NumberPath<Long> id, Predicate where,
+                                     int chunkSize, Consumer<BulkMutationResult> progress) {
+        return execute(entity, id, where, chunkSize, progress, (after, upTo) -> {
+            JPADeleteClause chunk = new JPADeleteClause(em, entity).where(where, range(id, after, upTo));
+            return BulkStatements.execute(chunk::execute);
+        });
+    }
+
+    /**
+     * @param mutation (after, upTo] 구간에 대해 update/delete를 실행하고 바뀐 로우 수를 반환 (after가 Long.MIN_VALUE면 하한 없음)
+     */
+    private BulkMutationResult execute(EntityPath<?> entity, NumberPath<Long> id, Predicate where,
+                                       int chunkSize, Consumer<BulkMutationResult> progress,
+                                       LongBinaryOperator mutation) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("벌크 연산은 트랜잭션 밖에서 호출해야 합니다. "
+                    + "(청크마다 커밋하고 영속성 컨텍스트를 비우기 때문에 호출한 쪽의 엔티티가 준영속이 됩니다.)");
+        }
+        long start = System.nanoTime();
+        Long maxId = new ProfiledJPAQuery<Long>(em).select(id.max()).from(entity).where(where).fetchOne();
+        if (maxId == null) {
+            return new BulkMutationResult(0, 0, null, null, true, Duration.ofNanos(System.nanoTime() - start));
+        }
+
+        int chunks = 0;
+        long affectedRows = 0;
+        long lastId = Long.MIN_VALUE;
+        BulkMutationResult result;
+        do {
+            long after = lastId;
+            long[] chunk = transactionTemplate.execute(status -> {
+                // 이번 청크의 끝 id : 조건에 맞는 로우 중 after 다음 chunkSize번째 id (없으면 maxId까지)
+                Long chunkEnd = new ProfiledJPAQuery<Long>(em)
+                        .select(id)
+                        .from(entity)
+                        .where(where, range(id, after, maxId))
+                        .orderBy(id.asc())
+                        .offset(chunkSize - 1)
+                        .fetchFirst();
+                long upTo = chunkEnd != null ? chunkEnd : maxId;
+                // 아직 반영하지 않은 변경을 먼저 보내고, 벌크 연산 후에는 바뀌기 전 엔티티를 버린다.
+                em.flush();
+                long rows = mutation.applyAsLong(after, upTo);
+                em.clear();
+                return new long[]{upTo, rows};
+            });
+            lastId = chunk[0];
+            affectedRows += chunk[1];
+            chunks++;
+            result = new BulkMutationResult(chunks, affectedRows, lastId, maxId, lastId >= maxId,
+                    Duration.ofNanos(System.nanoTime() - start));
+            if (progress != null) {
+                progress.accept(result);
+            }
+            if (!result.isFinished()) {
+                pause();
+            }
+        } while (!result.isFinished());
+
+        log.info("bulk mutation finished. entity : " + entity + ", " + result);
+        return result;
+    }
+
+    // (after, upTo] 구간
+    private static BooleanExpression range(NumberPath<Long> id, long after, long upTo) {
+        BooleanExpression upper = id.loe(upTo);
+        return after == Long.MIN_VALUE ? upper : id.gt(after).and(upper);
+    }
+
+    private void pause() {
+        Duration delay = throttle;
+        if (delay.isZero() || delay.isNegative()) {
+            return;
+        }
+        try {
+            Thread.sleep(delay.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("벌크 연산의 청크 사이에서 인터럽트 되었습니다.", e);
+        }
+    }
+}
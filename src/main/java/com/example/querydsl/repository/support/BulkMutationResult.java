@@ -0,0 +1,39 @@
+package com.example.querydsl.repository.support;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * BulkMutationExecutor의 진행 상황 / 결과
+ * 청크가 끝날 때마다 지금까지의 누적값으로 새로 만들어집니다.
+ */
+@Getter
+@AllArgsConstructor
+public class BulkMutationResult {
+    // 커밋한 청크 수
+    private final int chunks;
+    // 변경(삭제)된 로우 수
+    private final long affectedRows;
+    // 마지막으로 처리한 id (다음 청크는 이 id 다음부터)
+    private final Long lastId;
+    // 처리 대상의 마지막 id (시작할 때 조건에 맞던 가장 큰 id)
+    private final Long maxId;
+    // 마지막 청크까지 끝났는지 여부
+    private final boolean finished;
+    // throttle 대기 시간을 포함한 경과 시간
+    private final Duration elapsed;
+
+    public double getRowsPerSecond() {
+        long millis = elapsed.toMillis();
+        return millis == 0 ? affectedRows : affectedRows * 1000.0 / millis;
+    }
+
+    @Override
+    public String toString() {
+        return "chunks : " + chunks + ", affectedRows : " + affectedRows
+                + ", lastId : " + lastId + "/" + maxId + (finished ? " (finished)" : "")
+                + ", elapsed : " + elapsed.toMillis() + "ms";
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.querydsl.repository.support;
+
+import java.util.function.LongSupplier;
+
+/**
+ * 지금 실행 중인 SQL이 JPQL/Querydsl 벌크 연산(update, delete)에서 나온 것인지 알려주는 유틸리티
+ * <p>
+ * SqlStatementInspector는 SQL만 보고는 벌크 연산과 엔티티 변경(더티 체킹, em.remove)으로 나가는 update, delete를
+ * 구분할 수 없습니다. 엔티티 변경은 엔티티 리스너가 엔티티와 함께 알려주므로,
+ * 벌크 연산을 실행하는 쪽(ProfiledJPAQueryFactory, BulkMutationExecutor)이 execute()를 여기서 감싸고
+ * 그동안 실행된 update, delete만 STATEMENT 이벤트로 발행합니다.
+ * 다른 경로로 벌크 연산을 실행하면(@Modifying 쿼리 등) 같은 방식으로 감싸야 캐시와 인메모리 인덱스가 변경을 압니다.
+ */
+public final class BulkStatements {
+    private static final ThreadLocal<Boolean> ACTIVE = new ThreadLocal<>();
+
+    private BulkStatements() {
+    }
+
+    public static long execute(LongSupplier execution) {
+        if (ACTIVE.get() != null) {
+            return execution.getAsLong();
+        }
+        ACTIVE.set(Boolean.TRUE);
+        try {
+            return execution.getAsLong();
+        } finally {
+            ACTIVE.remove();
+        }
+    }
+
+    public static boolean isActive() {
+        return ACTIVE.get() != null;
+    }
+}
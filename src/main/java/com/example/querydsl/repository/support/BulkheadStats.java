@@ -0,0 +1,28 @@
+package com.example.querydsl.repository.support;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * DB 벌크헤드의 현재 상태와 대기 시간 (밀리초)
+ * 대기 시간 백분위는 최근 query.bulkhead.samples개 요청 기준
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class BulkheadStats {
+    // 동시에 실행할 수 있는 요청 수
+    private final int permits;
+    // 지금 실행 중인 요청 수
+    private final int active;
+    // 지금 자리를 기다리는 요청 수 (대기열 깊이)
+    private final int queueDepth;
+    private final int maxQueueDepth;
+    private final long acquired;
+    // max-wait 안에 자리를 얻지 못해서 503으로 응답한 수
+    private final long rejected;
+    private final double p50WaitMillis;
+    private final double p99WaitMillis;
+    private final double maxWaitMillis;
+}
@@ -0,0 +1,28 @@
+package com.example.querydsl.repository.support;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 캐시 적중/미스 등의 통계
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class CacheStats {
+    private final long hits;
+    private final long misses;
+    // 크기 제한이나 TTL 만료로 제거된 엔트리 수
+    private final long evictions;
+    // 데이터 변경으로 캐시 전체를 비운 횟수
+    private final long invalidations;
+    private final int size;
+    // 보관 중인 값의 추정 메모리 크기 (크기를 집계하지 않는 캐시는 0)
+    private final long estimatedBytes;
+
+    public double getHitRatio() {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.querydsl.repository.support;
+
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.impl.JPAProvider;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAUtil;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JPQL로 한 번 직렬화해 둔 Querydsl 쿼리
+ * <p>
+ * 검색 조건 값은 Param으로 비워둔 채 컴파일하고, 실행할 때 값만 바인딩합니다.
+ * 매 요청마다 Querydsl AST를 만들고 JPQLSerializer로 직렬화하는 과정을 건너뛰고,
+ * JPQL 문자열이 항상 같기 때문에 Hibernate의 쿼리 해석 캐시(plan cache)도 그대로 적중합니다.
+ */
+public class CompiledQuery<T> {
+    // Param이 들어있는 쿼리 템플릿 (count 추정 등 JPAQuery가 필요한 경우에 사용)
+    private final QueryMetadata metadata;
+    // 직렬화된 JPQL과 상수 목록을 가지고 있다.
+    private final JPQLSerializer serializer;
+    private final String jpql;
+    // DTO 프로젝션이면 Object[] 결과를 DTO로 바꿀 때 사용, 엔티티나 단일 값이면 null
+    private final FactoryExpression<T> projection;
+    // SlowQueryLog에 기록할 쿼리 지문 (처음 실행할 때 만든다.)
+    private volatile String fingerprint;
+
+    @SuppressWarnings("unchecked")
+    private CompiledQuery(QueryMetadata metadata, JPQLSerializer serializer) {
+        this.metadata = metadata;
+        this.serializer = serializer;
+        this.jpql = serializer.toString();
+        Expression<?> select = metadata.getProjection();
+        this.projection = select instanceof FactoryExpression ? (FactoryExpression<T>) select : null;
+    }
+
+    public static <T> CompiledQuery<T> compile(EntityManager em, JPAQuery<T> template) {
+        QueryMetadata metadata = template.getMetadata().clone();
+        JPQLSerializer serializer = new JPQLSerializer(JPAProvider.getTemplates(em), em);
+        serializer.serialize(metadata, false, null);
+        return new CompiledQuery<>(metadata, serializer);
+    }
+
+    public String getJpql() {
+        return jpql;
+    }
+
+    public List<T> fetch(EntityManager em, Map<ParamExpression<?>, Object> params) {
+        return fetch(em, params, 0, -1);
+    }
+
+    // limit이 0보다 작으면 제한하지 않는다.
+    @SuppressWarnings("unchecked")
+    public List<T> fetch(EntityManager em, Map<ParamExpression<?>, Object> params, long offset, long limit) {
+        Query query = createQuery(em, params);
+        if (offset > 0) {
+            query.setFirstResult((int) offset);
+        }
+        if (limit >= 0) {
+            query.setMaxResults((int) limit);
+        }
+        List<?> rows = SlowQueryLog.execute(this::fingerprint,
+                () -> ProfiledJPAQuery.describe(serializer.getConstants(), params), query::getResultList);
+        if (projection == null) {
+            return (List<T>) rows;
+        }
+        List<T> result = new ArrayList<>(rows.size());
+        for (Object row : rows) {
+            result.add(projection.newInstance(row instanceof Object[] ? (Object[]) row : new Object[]{row}));
+        }
+        return result;
+    }
+
+    public T fetchOne(EntityManager em, Map<ParamExpression<?>, Object> params) {
+        List<T> result = fetch(em, params, 0, 1);
+        return result.isEmpty() ? null : result.get(0);
+    }
+
+    // 템플릿에 값을 바인딩한 JPAQuery (매번 직렬화되므로 자주 실행하는 경로에서는 fetch()를 사용)
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public JPAQuery<T> toQuery(EntityManager em, Map<ParamExpression<?>, Object> params) {
+        JPAQuery<T> query = new ProfiledJPAQuery<>(em, metadata.clone());
+        params.forEach((param, value) -> query.getMetadata().setParam((ParamExpression) param, value));
+        return query;
+    }
+
+    private String fingerprint() {
+        String value = fingerprint;
+        if (value == null) {
+            value = QueryFingerprint.of(metadata, "select");
+            fingerprint = value;
+        }
+        return value;
+    }
+
+    private Query createQuery(EntityManager em, Map<ParamExpression<?>, Object> params) {
+        Query query = em.createQuery(jpql);
+        // AbstractJPAQuery.createQuery()와 같은 방법으로 상수, 파라미터를 바인딩한다.
+        JPAUtil.setConstants(query, serializer.getConstants(), params);
+        return ReadOnlyQueryHints.apply(query);
+    }
+}
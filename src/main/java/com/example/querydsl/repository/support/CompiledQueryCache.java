@@ -0,0 +1,28 @@
+package com.example.querydsl.repository.support;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+/**
+ * 조건의 모양(어떤 조건이 들어왔는지) + 정렬을 키로 컴파일된 쿼리를 보관하는 캐시
+ * 값은 실행할 때 바인딩하므로 데이터가 바뀌어도 비울 필요가 없고, 크기로만 제한합니다.
+ */
+@Component
+public class CompiledQueryCache {
+    private final ExpiringCache<Object, CompiledQuery<?>> cache;
+
+    public CompiledQueryCache(@Value("${query.compiled-cache.max-size:256}") int maxSize) {
+        this.cache = new ExpiringCache<>(maxSize);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> CompiledQuery<T> get(Object key, Supplier<CompiledQuery<T>> compiler) {
+        return (CompiledQuery<T>) cache.getOrLoad(key, compiler::get);
+    }
+
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+}
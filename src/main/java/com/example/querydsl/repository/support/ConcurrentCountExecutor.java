@@ -0,0 +1,217 @@
+package com.example.querydsl.repository.support;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.QueryTimeoutException;
+import lombok.extern.log4j.Log4j2;
+import org.hibernate.Session;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.jpa.SpecHints;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 페이징의 count 쿼리를 컨텐츠 쿼리와 동시에 실행하는 컴포넌트 (query.pagination.concurrent-count.enabled)
+ * <p>
+ * EntityManager는 스레드 간에 공유할 수 없으므로 count는 별도의 읽기 전용 EntityManager에서 실행합니다.
+ * 요청 하나가 커넥션을 두 개 사용하게 되므로 동시에 실행하는 count 수를 max-concurrency로 제한하고,
+ * 자리가 없으면 기존처럼 컨텐츠 쿼리 다음에 실행합니다.
+ * 별도의 EntityManager는 호출한 쪽의 커밋하지 않은 변경을 볼 수 없으므로 쓰기 트랜잭션 안에서는 동시에 실행하지 않습니다.
+ * count가 필요 없다고 판단되면 PendingCount.cancel()로 DB에서 실행 중인 statement를 취소합니다.
+ */
+@Component
+@Log4j2
+public class ConcurrentCountExecutor implements DisposableBean {
+    private final EntityManagerFactory emf;
+    private final QueryCountCache countCache;
+    private final boolean enabled;
+    private final Duration timeout;
+    private final Semaphore permits;
+    private final ExecutorService executor;
+
+    public ConcurrentCountExecutor(EntityManagerFactory emf,
+                                   QueryCountCache countCache,
+                                   @Value("${query.pagination.concurrent-count.enabled:false}") boolean enabled,
+                                   @Value("${query.pagination.concurrent-count.timeout:3s}") Duration timeout,
+                                   @Value("${query.pagination.concurrent-count.max-concurrency:0}") int maxConcurrency,
+                                   @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize) {
+        this.emf = emf;
+        this.countCache = countCache;
+        this.enabled = enabled;
+        this.timeout = timeout;
+        // 0이면 커넥션 풀의 절반 : count마다 커넥션을 하나 더 쓰므로 나머지 절반은 컨텐츠 쿼리에 남겨둔다.
+        // 풀 크기보다 크게 설정해도 풀 크기를 넘지 않는다.
+        maxConcurrency = Math.min(maxConcurrency > 0 ? maxConcurrency : Math.max(1, poolSize / 2), poolSize);
+        this.permits = new Semaphore(maxConcurrency);
+        this.executor = enabled ? newExecutor(maxConcurrency) : null;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * count 쿼리를 다른 스레드에서 시작한다.
+     * 캐시에 있으면 바로 완료된 결과를, 쓰기 트랜잭션 안이거나 동시 실행 자리가 없으면 null을 반환한다.
+     */
+    public PendingCount submit(JPAQuery<Long> countQuery) {
+        // 다른 스레드의 EntityManager는 호출한 쪽 트랜잭션에서 아직 커밋하지 않은 변경을 볼 수 없다.
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return null;
+        }
+        OptionalLong cached = countCache.getIfPresent(countQuery);
+        if (cached.isPresent()) {
+            return new PendingCount(CompletableFuture.completedFuture(cached.getAsLong()));
+        }
+        if (!permits.tryAcquire()) {
+            return null;
+        }
+        try {
+            CompletableFuture<Long> result = new CompletableFuture<>();
+            PendingCount pending = new PendingCount(result);
+            // 자리는 쿼리가 실제로 끝난 뒤(취소된 경우 포함)에 반납한다.
+            executor.execute(() -> {
+                try {
+                    if (!pending.isCancelled()) {
+                        result.complete(countCache.getOrCount(countQuery, () -> countInReadOnly(countQuery, pending)));
+                    }
+                } catch (RuntimeException e) {
+                    result.completeExceptionally(e);
+                } finally {
+                    permits.release();
+                }
+            });
+            return pending;
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    // timeout 안에 끝나지 않으면 QueryTimeoutException을 던진다.
+    public long join(PendingCount total) {
+        try {
+            return total.result.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            total.cancel();
+            throw new QueryTimeoutException("count 쿼리가 " + timeout + " 안에 끝나지 않았습니다.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            total.cancel();
+            throw new IllegalStateException("count 쿼리를 기다리는 중에 인터럽트 되었습니다.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private long countInReadOnly(JPAQuery<Long> countQuery, PendingCount pending) {
+        EntityManager em = emf.createEntityManager();
+        Session session = em.unwrap(Session.class);
+        try {
+            // 더티 체킹용 스냅샷을 만들지 않는다.
+            session.setDefaultReadOnly(true);
+            pending.running(session);
+            Long total = countQuery.clone(em)
+                    .setHint(HibernateHints.HINT_READ_ONLY, true)
+                    // 취소 요청이 statement를 만들기 전에 와서 놓치더라도 DB에서 이 시간 이상 실행되지 않는다.
+                    .setHint(SpecHints.HINT_SPEC_QUERY_TIMEOUT, (int) timeout.toMillis())
+                    .fetchOne();
+            return total != null ? total : 0L;
+        } finally {
+            pending.running(null);
+            em.close();
+        }
+    }
+
+    /**
+     * 실행 중인 count
+     * <p>
+     * CompletableFuture.cancel()은 실행 중인 작업을 멈추지 못하므로 cancel()은 JDBC Statement.cancel()
+     * (Session.cancelQuery())로 DB에서 실행 중인 쿼리를 멈춘다.
+     * 남는 비용 : count는 컨텐츠 쿼리와 동시에 시작하므로 count가 필요 없는 페이지(덜 찬 첫 페이지, 마지막 페이지)에서도
+     * 취소될 때까지 커넥션 하나와 DB 작업 일부를 쓴다. (필요한지 알고 나서 시작하면 동시에 실행하는 의미가 없다.)
+     */
+    public static final class PendingCount {
+        private final CompletableFuture<Long> result;
+        private final AtomicReference<Session> running = new AtomicReference<>();
+        private volatile boolean cancelled;
+
+        private PendingCount(CompletableFuture<Long> result) {
+            this.result = result;
+        }
+
+        private boolean isCancelled() {
+            return cancelled;
+        }
+
+        private void running(Session session) {
+            running.set(session);
+            if (session != null && cancelled) {
+                // 실행 전에 취소되었으면 시작하지 않는다.
+                throw new CancellationException("count 쿼리가 취소되었습니다.");
+            }
+        }
+
+        public void cancel() {
+            cancelled = true;
+            result.cancel(false);
+            Session session = running.get();
+            if (session != null) {
+                try {
+                    session.cancelQuery();
+                } catch (RuntimeException e) {
+                    // 그 사이에 쿼리가 끝나서 세션이 닫힌 경우
+                    log.debug("count 쿼리 취소 실패", e);
+                }
+            }
+        }
+    }
+
+    // 가상 스레드를 사용할 수 있으면(Java 21+) 사용하고, 아니면 크기가 제한된 스레드 풀을 사용한다.
+    private static ExecutorService newExecutor(int maxConcurrency) {
+        try {
+            return (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null);
+        } catch (ReflectiveOperationException e) {
+            log.info("가상 스레드를 사용할 수 없어서 플랫폼 스레드 풀로 count를 실행합니다.");
+            AtomicInteger sequence = new AtomicInteger();
+            // 동시 실행 수는 Semaphore로 제한하므로 큐가 쌓이지 않는다.
+            return new ThreadPoolExecutor(maxConcurrency, maxConcurrency, 60, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "concurrent-count-" + sequence.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.querydsl.repository.support;
+
+/**
+ * 페이징할 때 전체 개수(total)를 어떻게 구할지 정하는 정책
+ */
+public enum CountPolicy {
+    // count 쿼리로 정확한 개수를 구한다. (기본값)
+    EXACT,
+    // 테이블 통계와 표본 count로 개수를 추정한다. (결과에 approximate 표시)
+    ESTIMATED,
+    // 개수를 구하지 않고 다음 페이지가 있는지만 확인한다.
+    NONE,
+    // 조건의 선택도와 과거 count 소요 시간을 보고 EXACT, ESTIMATED 중에서 고른다.
+    AUTO
+}
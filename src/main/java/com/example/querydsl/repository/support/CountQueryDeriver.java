@@ -0,0 +1,201 @@
+package com.example.querydsl.repository.support;
+
+import com.querydsl.core.DefaultQueryMetadata;
+import com.querydsl.core.JoinExpression;
+import com.querydsl.core.JoinFlag;
+import com.querydsl.core.JoinType;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.PathType;
+import com.querydsl.core.types.SubQueryExpression;
+import com.querydsl.core.types.TemplateExpression;
+import com.querydsl.jpa.JPAQueryMixin;
+import com.querydsl.jpa.impl.JPAQuery;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.ManagedType;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 컨텐츠 쿼리(JPAQuery)의 QueryMetadata로 count 쿼리를 만들어주는 유틸리티
+ * <p>
+ * 1. 프로젝션은 count(루트 엔티티)로 바꾸고 (distinct 쿼리면 count(distinct 루트 엔티티))
+ * 2. orderBy, offset, limit은 버리고
+ * 3. fetch join은 일반 join으로 바꾸고
+ * 4. 어떤 조건에서도 사용하지 않는 to-one left join은 결과 개수에 영향이 없으므로 제거합니다.
+ * inner join은 로우를 거르고, to-many join은 로우를 늘리기 때문에 그대로 둡니다.
+ */
+public final class CountQueryDeriver {
+
+    private CountQueryDeriver() {
+    }
+
+    public static JPAQuery<Long> derive(EntityManager em, JPAQuery<?> contentQuery) {
+        QueryMetadata source = contentQuery.getMetadata();
+        if (!source.getGroupBy().isEmpty()) {
+            // group by가 있으면 그룹의 개수를 세야 하는데 JPQL로는 표현할 수 없다.
+            throw new IllegalArgumentException("group by가 있는 쿼리는 count 쿼리를 만들 수 없습니다.");
+        }
+        Expression<?> root = source.getJoins().get(0).getTarget();
+
+        QueryMetadata count = new DefaultQueryMetadata();
+        count.setValidate(false);
+        // fetch join은 count 쿼리에서 의미가 없고, Hibernate는 select에 owner가 없으면 오류를 낸다.
+        copyJoins(count, requiredJoins(em, source, false, false), false);
+        if (source.getWhere() != null) {
+            count.addWhere(source.getWhere());
+        }
+        copyParams(source, count);
+        count.setProjection(source.isDistinct()
+                ? ExpressionUtils.operation(Long.class, Ops.AggOps.COUNT_DISTINCT_AGG, root)
+                : ExpressionUtils.operation(Long.class, Ops.AggOps.COUNT_AGG, root));
+        return new ProfiledJPAQuery<>(em, count);
+    }
+
+    /**
+     * 결과 로우 수에 영향을 주는 join만 남긴다.
+     * 뒤쪽 join이 앞쪽 join의 별칭을 사용할 수 있으므로 뒤에서부터 보면서 필요한 별칭을 모은다.
+     *
+     * @param keepOrderBy orderBy에서 사용하는 별칭도 필요한 것으로 본다.
+     * @param dropToMany  사용하지 않는 to-many left join도 제거한다. (중복 로우가 필요 없는 id 조회용)
+     */
+    static List<JoinExpression> requiredJoins(EntityManager em, QueryMetadata source,
+                                              boolean keepOrderBy, boolean dropToMany) {
+        Set<String> referenced = new HashSet<>();
+        collectRoots(source.getWhere(), referenced);
+        collectRoots(source.getHaving(), referenced);
+        if (keepOrderBy) {
+            for (OrderSpecifier<?> order : source.getOrderBy()) {
+                collectRoots(order.getTarget(), referenced);
+            }
+        }
+
+        List<JoinExpression> joins = source.getJoins();
+        List<JoinExpression> required = new ArrayList<>(joins.size());
+        for (int i = joins.size() - 1; i >= 0; i--) {
+            JoinExpression join = joins.get(i);
+            if (i > 0 && isRemovable(em, join, referenced, dropToMany)) {
+                continue;
+            }
+            required.add(0, join);
+            collectRoots(join.getTarget(), referenced);
+            collectRoots(join.getCondition(), referenced);
+        }
+        return required;
+    }
+
+    static void copyJoins(QueryMetadata target, List<JoinExpression> joins, boolean keepFetch) {
+        for (JoinExpression join : joins) {
+            target.addJoin(join.getType(), join.getTarget());
+            if (join.getCondition() != null) {
+                target.addJoinCondition(join.getCondition());
+            }
+            for (JoinFlag flag : join.getFlags()) {
+                if (keepFetch || !isFetch(flag)) {
+                    target.addJoinFlag(flag);
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static void copyParams(QueryMetadata source, QueryMetadata target) {
+        for (Map.Entry<ParamExpression<?>, Object> param : source.getParams().entrySet()) {
+            target.setParam((ParamExpression) param.getKey(), param.getValue());
+        }
+    }
+
+    // inner join으로 남아있는 to-many join이 있으면 루트 엔티티가 여러 번 나올 수 있다.
+    static boolean hasToManyJoin(EntityManager em, List<JoinExpression> joins) {
+        for (int i = 1; i < joins.size(); i++) {
+            if (joins.get(i).getTarget() instanceof Operation<?> alias && alias.getOperator() == Ops.ALIAS
+                    && alias.getArg(0) instanceof Path<?> association && !isToOne(em, association)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isFetch(JoinFlag flag) {
+        return flag.equals(JPAQueryMixin.FETCH) || flag.equals(JPAQueryMixin.FETCH_ALL_PROPERTIES);
+    }
+
+    private static boolean isRemovable(EntityManager em, JoinExpression join, Set<String> referenced,
+                                       boolean dropToMany) {
+        if (join.getType() != JoinType.LEFTJOIN || !(join.getTarget() instanceof Operation<?> alias)
+                || alias.getOperator() != Ops.ALIAS) {
+            return false;
+        }
+        Path<?> aliasPath = (Path<?>) alias.getArg(1);
+        if (referenced.contains(aliasPath.getMetadata().getName())) {
+            return false;
+        }
+        // with 절이 있어도 left join이면 로우 수는 그대로이므로 to-one 여부만 보면 된다.
+        return dropToMany || alias.getArg(0) instanceof Path<?> association && isToOne(em, association);
+    }
+
+    private static boolean isToOne(EntityManager em, Path<?> association) {
+        Path<?> parent = association.getMetadata().getParent();
+        if (parent == null || association.getMetadata().getPathType() != PathType.PROPERTY) {
+            return false;
+        }
+        try {
+            ManagedType<?> parentType = em.getMetamodel().managedType(parent.getType());
+            Attribute.PersistentAttributeType type =
+                    parentType.getAttribute(association.getMetadata().getName()).getPersistentAttributeType();
+            return type == Attribute.PersistentAttributeType.MANY_TO_ONE
+                    || type == Attribute.PersistentAttributeType.ONE_TO_ONE;
+        } catch (IllegalArgumentException e) {
+            // 메타모델에서 찾을 수 없으면 안전하게 남겨둔다.
+            return false;
+        }
+    }
+
+    // 표현식 안에서 사용한 경로의 루트 별칭(member, team 등)을 모은다.
+    private static void collectRoots(Expression<?> expression, Set<String> roots) {
+        if (expression == null) {
+            return;
+        }
+        if (expression instanceof Path<?> path) {
+            roots.add(path.getRoot().getMetadata().getName());
+        } else if (expression instanceof Operation<?> operation) {
+            for (Expression<?> arg : operation.getArgs()) {
+                collectRoots(arg, roots);
+            }
+        } else if (expression instanceof TemplateExpression<?> template) {
+            // 템플릿 인자에는 표현식이 아닌 값(문자열, 숫자 등)도 들어있다.
+            collectRoots(template.getArgs(), roots);
+        } else if (expression instanceof FactoryExpression<?> factory) {
+            collectRoots(factory.getArgs(), roots);
+        } else if (expression instanceof SubQueryExpression<?> subQuery) {
+            QueryMetadata metadata = subQuery.getMetadata();
+            collectRoots(metadata.getWhere(), roots);
+            collectRoots(metadata.getHaving(), roots);
+            for (JoinExpression join : metadata.getJoins()) {
+                collectRoots(join.getTarget(), roots);
+                collectRoots(join.getCondition(), roots);
+            }
+        }
+    }
+
+    private static void collectRoots(List<?> args, Set<String> roots) {
+        for (Object arg : args) {
+            if (arg instanceof Expression<?> expression) {
+                collectRoots(expression, roots);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,39 @@
+package com.example.querydsl.repository.support;
+
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 전체 개수를 어떤 정책으로 구했는지를 함께 담는 Page
+ * approximate가 true이면 totalElements, totalPages는 추정값입니다.
+ */
+public class CountedPage<T> extends PageImpl<T> {
+    private final boolean approximate;
+    // 실제로 적용된 정책 (AUTO로 요청해도 EXACT, ESTIMATED 중 하나가 들어간다.)
+    private final CountPolicy countPolicy;
+
+    public CountedPage(List<T> content, Pageable pageable, long total,
+                       boolean approximate, CountPolicy countPolicy) {
+        super(content, pageable, total);
+        this.approximate = approximate;
+        this.countPolicy = countPolicy;
+    }
+
+    public boolean isApproximate() {
+        return approximate;
+    }
+
+    public CountPolicy getCountPolicy() {
+        return countPolicy;
+    }
+
+    // 엔티티 페이지를 DTO 페이지로 바꿀 때도 approximate 정보가 사라지지 않도록 한다.
+    @Override
+    public <U> CountedPage<U> map(Function<? super T, ? extends U> converter) {
+        return new CountedPage<>(getConvertedContent(converter), getPageable(),
+                getTotalElements(), approximate, countPolicy);
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.querydsl.repository.support;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+
+import java.util.List;
+
+/**
+ * 키셋(seek) 페이징 결과
+ * Slice 정보에 더해 다음 페이지를 조회할 때 넘겨줄 커서를 함께 담습니다.
+ */
+public class CursorSlice<T> extends SliceImpl<T> {
+    // 다음 페이지가 없으면 null
+    private final String nextCursor;
+
+    public CursorSlice(List<T> content, Pageable pageable, boolean hasNext, String nextCursor) {
+        super(content, pageable, hasNext);
+        this.nextCursor = nextCursor;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
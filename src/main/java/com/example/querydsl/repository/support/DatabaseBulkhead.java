@@ -0,0 +1,121 @@
+package com.example.querydsl.repository.support;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * DB를 사용하는 요청의 동시 실행 수를 커넥션 풀 크기로 제한하는 벌크헤드 (query.bulkhead)
+ * <p>
+ * 커넥션보다 많은 요청이 동시에 들어오면 나머지는 Hikari에서 커넥션을 기다리다가 connection-timeout으로 실패하고,
+ * 그동안 요청 스레드도 붙잡혀 있습니다.
+ * 여기서는 커넥션을 얻기 전에 자리(permit)를 먼저 얻게 해서, 넘치는 요청은 공정한(fair) 대기열에서 순서대로 기다립니다.
+ * 가상 스레드(query.virtual-threads.enabled)에서는 기다리는 동안 플랫폼 스레드를 점유하지 않습니다.
+ * max-wait 안에 자리를 얻지 못하면 false를 돌려주고, 호출하는 쪽(DatabaseBulkheadFilter)이 503으로 응답합니다.
+ */
+@Component
+@Log4j2
+public class DatabaseBulkhead {
+    private final boolean enabled;
+    private final int permits;
+    private final Duration maxWait;
+    private final Semaphore semaphore;
+    // 자리를 기다리고 있는 요청 수 (대기열 깊이)
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicInteger maxWaiting = new AtomicInteger();
+    private final LongAdder acquired = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    // 최근 자리를 얻기까지 기다린 시간 (원형 버퍼, 백분위 계산용)
+    private final long[] recentWaits;
+    private int next;
+    private int filled;
+
+    public DatabaseBulkhead(@Value("${query.bulkhead.enabled:false}") boolean enabled,
+                            @Value("${query.bulkhead.max-concurrent:0}") int maxConcurrent,
+                            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize,
+                            @Value("${query.bulkhead.max-wait:2s}") Duration maxWait,
+                            @Value("${query.bulkhead.samples:1024}") int samples) {
+        this.enabled = enabled;
+        // 0이면 커넥션 풀 크기
+        this.permits = maxConcurrent > 0 ? maxConcurrent : poolSize;
+        this.maxWait = maxWait;
+        this.semaphore = new Semaphore(permits, true);
+        this.recentWaits = new long[samples];
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 자리를 얻는다. 얻었으면 반드시 release()로 반납해야 한다.
+     *
+     * @return max-wait 안에 자리를 얻지 못하면 false
+     */
+    public boolean acquire() throws InterruptedException {
+        // 인자 없는 tryAcquire()는 공정(fair) 설정을 무시하고 대기열을 새치기하므로 시간을 0으로 준다.
+        // (기다리는 요청이 있으면 실패하고 아래에서 대기열 뒤에 선다.)
+        if (semaphore.tryAcquire(0, TimeUnit.NANOSECONDS)) {
+            acquired.increment();
+            recordWait(0);
+            return true;
+        }
+        int depth = waiting.incrementAndGet();
+        maxWaiting.accumulateAndGet(depth, Math::max);
+        long start = System.nanoTime();
+        try {
+            if (semaphore.tryAcquire(maxWait.toNanos(), TimeUnit.NANOSECONDS)) {
+                acquired.increment();
+                recordWait(System.nanoTime() - start);
+                return true;
+            }
+            rejected.increment();
+            log.warn("DB 벌크헤드 대기 시간 초과 (동시 실행 {}, 대기 {})", permits, depth);
+            return false;
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+    public void release() {
+        semaphore.release();
+    }
+
+    public BulkheadStats getStats() {
+        long[] sorted;
+        synchronized (this) {
+            sorted = Arrays.copyOf(recentWaits, filled);
+        }
+        Arrays.sort(sorted);
+        return new BulkheadStats(permits,
+                permits - semaphore.availablePermits(),
+                waiting.get(),
+                maxWaiting.get(),
+                acquired.sum(),
+                rejected.sum(),
+                percentile(sorted, 0.50),
+                percentile(sorted, 0.99),
+                sorted.length == 0 ? 0.0 : sorted[sorted.length - 1] / 1_000_000.0);
+    }
+
+    private synchronized void recordWait(long nanos) {
+        recentWaits[next] = nanos;
+        next = (next + 1) % recentWaits.length;
+        filled = Math.min(filled + 1, recentWaits.length);
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0.0;
+        }
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(index, 0)] / 1_000_000.0;
+    }
+}
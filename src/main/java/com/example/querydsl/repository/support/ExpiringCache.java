@@ -0,0 +1,139 @@
+package com.example.querydsl.repository.support;
+
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * 크기 제한(LRU)과 TTL을 가진 단순한 인메모리 캐시
+ * 조회 쿼리 결과처럼 DB 변경이 생기면 통째로 비워도 되는 값을 담는 용도입니다.
+ */
+public class ExpiringCache<K, V> {
+    private final int maxSize;
+    private final long ttlNanos;
+    // 값의 대략적인 메모리 크기(byte)를 구하는 함수, null이면 크기를 집계하지 않는다.
+    private final ToLongFunction<V> weigher;
+    // accessOrder = true 로 두면 가장 오래 사용하지 않은 엔트리가 맨 앞에 온다. (LRU)
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    // invalidateAll()이 호출될 때마다 증가
+    // 무효화 전에 시작한 로딩 결과가 무효화 후에 저장되는 것을 막는다.
+    private long generation;
+    // 보관 중인 값의 추정 크기 합계 (byte)
+    private long estimatedBytes;
+
+    // TTL 없이 크기로만 제한하는 캐시 (값이 데이터 변경과 관계없는 경우)
+    public ExpiringCache(int maxSize) {
+        this(maxSize, Duration.ofNanos(Long.MAX_VALUE));
+    }
+
+    public ExpiringCache(int maxSize, Duration ttl) {
+        this(maxSize, ttl, null);
+    }
+
+    public ExpiringCache(int maxSize, Duration ttl, ToLongFunction<V> weigher) {
+        Assert.isTrue(maxSize > 0, "maxSize must be positive!");
+        Assert.notNull(ttl, "ttl must not be null!");
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.weigher = weigher;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                boolean evict = size() > ExpiringCache.this.maxSize;
+                if (evict) {
+                    evictions.incrementAndGet();
+                    estimatedBytes -= eldest.getValue().weight;
+                }
+                return evict;
+            }
+        };
+    }
+
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        if (entry.isExpired(ttlNanos)) {
+            entries.remove(key);
+            estimatedBytes -= entry.weight;
+            evictions.incrementAndGet();
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.value;
+    }
+
+    // 캐시에 없으면 loader로 값을 구해서 저장한다.
+    // loader(쿼리 실행)는 락 밖에서 실행해서 다른 키의 조회를 막지 않는다.
+    public V getOrLoad(K key, Supplier<V> loader) {
+        long startGeneration;
+        synchronized (this) {
+            V cached = get(key);
+            if (cached != null) {
+                return cached;
+            }
+            startGeneration = generation;
+        }
+        V value = loader.get();
+        synchronized (this) {
+            if (value != null && startGeneration == generation) {
+                store(key, value);
+            }
+        }
+        return value;
+    }
+
+    public synchronized void put(K key, V value) {
+        store(key, value);
+    }
+
+    private void store(K key, V value) {
+        Entry<V> entry = new Entry<>(value, weigher != null ? weigher.applyAsLong(value) : 0L);
+        // 크기 제한으로 밀려나는 엔트리는 removeEldestEntry에서 빼준다.
+        estimatedBytes += entry.weight;
+        Entry<V> previous = entries.put(key, entry);
+        if (previous != null) {
+            estimatedBytes -= previous.weight;
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+        invalidations.incrementAndGet();
+        entries.clear();
+        estimatedBytes = 0;
+    }
+
+    public synchronized CacheStats stats() {
+        return new CacheStats(hits.get(), misses.get(), evictions.get(), invalidations.get(), entries.size(),
+                estimatedBytes);
+    }
+
+    private static class Entry<V> {
+        private final V value;
+        private final long weight;
+        private final long createdAt = System.nanoTime();
+
+        private Entry(V value, long weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+
+        private boolean isExpired(long ttlNanos) {
+            return System.nanoTime() - createdAt > ttlNanos;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.querydsl.repository.support;
+
+import com.querydsl.core.DefaultQueryMetadata;
+import com.querydsl.core.JoinExpression;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpressionBase;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.Visitor;
+import com.querydsl.core.types.dsl.SimpleExpression;
+import com.querydsl.jpa.impl.JPAQuery;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceUnitUtil;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * id 먼저 페이징 (2단계 페이징)에 사용하는 쿼리를 컨텐츠 쿼리에서 만들어주는 유틸리티
+ * <p>
+ * fetch join + offset/limit 을 같이 쓰면 to-many fetch join에서는 Hibernate가 전체를 읽어서 메모리에서 페이징하고,
+ * to-one fetch join이어도 넓은 로우 전체가 정렬을 거칩니다.
+ * 1단계 : 조건과 정렬만 적용해서 id만 페이징 (fetch join, 사용하지 않는 left join 제거)
+ * 2단계 : 그 id들을 fetch join과 함께 IN 쿼리 한 번으로 읽고, 1단계의 순서대로 다시 정렬
+ */
+public final class IdFirstQueries {
+
+    private IdFirstQueries() {
+    }
+
+    // 1단계 : 컨텐츠 쿼리의 조건, 정렬로 id만 조회하는 쿼리 (페이징은 호출하는 쪽에서 적용)
+    // 정렬은 컨텐츠 쿼리에 넣어서 넘겨야 한다. (만든 뒤에 정렬을 추가하면 중복 제거가 필요할 때 정렬 키가 select 절에 없다.)
+    public static <ID> JPAQuery<ID> idQuery(EntityManager em, JPAQuery<?> contentQuery, SimpleExpression<ID> id) {
+        QueryMetadata source = contentQuery.getMetadata();
+        List<JoinExpression> joins = CountQueryDeriver.requiredJoins(em, source, true, true);
+
+        QueryMetadata ids = new DefaultQueryMetadata();
+        ids.setValidate(false);
+        CountQueryDeriver.copyJoins(ids, joins, false);
+        if (source.getWhere() != null) {
+            ids.addWhere(source.getWhere());
+        }
+        for (OrderSpecifier<?> order : source.getOrderBy()) {
+            ids.addOrderBy(order);
+        }
+        CountQueryDeriver.copyParams(source, ids);
+        // 조건에 to-many inner join이 남아있으면 같은 id가 여러 번 나오므로 중복을 제거한다.
+        // select distinct는 order by의 표현식이 select 절에 있어야 하므로(H2 등) 정렬 키를 id와 같이 조회하고 id만 꺼낸다.
+        // (정렬 키는 루트 엔티티나 to-one 경로의 컬럼이어야 id마다 한 로우가 된다.)
+        boolean distinct = source.isDistinct() || CountQueryDeriver.hasToManyJoin(em, joins);
+        ids.setDistinct(distinct);
+        ids.setProjection(distinct ? withSortKeys(id, source.getOrderBy()) : id);
+        return new ProfiledJPAQuery<>(em, ids);
+    }
+
+    private static <ID> Expression<ID> withSortKeys(SimpleExpression<ID> id, List<OrderSpecifier<?>> orderBy) {
+        List<Expression<?>> args = new ArrayList<>(orderBy.size() + 1);
+        args.add(id);
+        for (OrderSpecifier<?> order : orderBy) {
+            if (!args.contains(order.getTarget())) {
+                args.add(order.getTarget());
+            }
+        }
+        return args.size() == 1 ? id : new IdWithSortKeys<>(id.getType(), args);
+    }
+
+    // 2단계 : id 목록을 컨텐츠 쿼리(fetch join 포함)로 읽어서 ids 순서대로 반환
+    @SuppressWarnings("unchecked")
+    public static <T, ID> List<T> hydrate(EntityManager em, JPAQuery<T> contentQuery,
+                                          SimpleExpression<ID> id, List<ID> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        QueryMetadata source = contentQuery.getMetadata();
+        QueryMetadata hydrate = new DefaultQueryMetadata();
+        hydrate.setValidate(false);
+        CountQueryDeriver.copyJoins(hydrate, source.getJoins(), true);
+        // 조건은 1단계에서 이미 적용했으므로 id로만 찾는다.
+        hydrate.addWhere(id.in(ids));
+        CountQueryDeriver.copyParams(source, hydrate);
+        hydrate.setDistinct(source.isDistinct());
+        hydrate.setProjection(source.getProjection());
+        List<T> rows = new ProfiledJPAQuery<T>(em, hydrate).fetch();
+
+        PersistenceUnitUtil persistenceUnitUtil = em.getEntityManagerFactory().getPersistenceUnitUtil();
+        Map<ID, T> byId = new HashMap<>(rows.size() * 2);
+        for (T row : rows) {
+            byId.put((ID) persistenceUnitUtil.getIdentifier(row), row);
+        }
+        List<T> ordered = new ArrayList<>(ids.size());
+        for (ID value : ids) {
+            T row = byId.get(value);
+            // 두 쿼리 사이에 삭제된 로우는 빠진다.
+            if (row != null) {
+                ordered.add(row);
+            }
+        }
+        return ordered;
+    }
+
+    // id와 정렬 키를 select 하고 결과는 첫 번째 값(id)만 돌려주는 프로젝션
+    private static final class IdWithSortKeys<ID> extends FactoryExpressionBase<ID> {
+        private final List<Expression<?>> args;
+
+        private IdWithSortKeys(Class<? extends ID> type, List<Expression<?>> args) {
+            super(type);
+            this.args = List.copyOf(args);
+        }
+
+        @Override
+        public List<Expression<?>> getArgs() {
+            return args;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public ID newInstance(Object... values) {
+            return (ID) values[0];
+        }
+
+        @Override
+        public <R, C> R accept(Visitor<R, C> visitor, C context) {
+            return visitor.visit(this, context);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.querydsl.repository.support;
+
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.jpa.impl.JPAQuery;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.function.LongSupplier;
+
+/**
+ * 전체 개수를 구하는 데 필요한 정보
+ * TotalCountResolver가 정책에 따라 정확한 count, 추정 count를 만들 때 사용합니다.
+ */
+@Getter
+@Builder
+public class PageCount {
+    // 컨텐츠 쿼리와 같은 조인, 같은 조건을 가진 count 쿼리
+    private final JPAQuery<Long> countQuery;
+    // 정확한 count를 구하는 방법 (컴파일된 쿼리 등), null이면 countQuery.fetchOne()을 사용
+    private final LongSupplier counter;
+    // 표본 count를 구할 때 범위를 자르는 데 사용하는 id 경로 (예: member.id)
+    private final NumberPath<Long> id;
+    // count 캐시와 AUTO 정책의 소요 시간 기록을 구분하는 값 (메서드 이름 등, 모양과 함께 사용)
+    private final String scope;
+    // 정규화된 검색 조건, null이면 count 쿼리의 where 절을 키로 사용
+    private final Object key;
+    // AUTO 정책의 소요 시간을 구분하는 쿼리 모양 (MemberQueryShape 등), null이면 count 쿼리의 지문을 사용
+    private final Object shape;
+    // 결과가 적을 것으로 예상되는 조건인지 (예: userName 일치 조건)
+    private final boolean selective;
+}
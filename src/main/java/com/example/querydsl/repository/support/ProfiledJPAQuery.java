@@ -0,0 +1,141 @@
+package com.example.querydsl.repository.support;
+
+import com.mysema.commons.lang.CloseableIterator;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.QueryModifiers;
+import com.querydsl.core.QueryResults;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.JPQLTemplates;
+import com.querydsl.jpa.impl.JPAProvider;
+import com.querydsl.jpa.impl.JPAQuery;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * 실행 시간을 SlowQueryLog에 기록하는 JPAQuery
+ * <p>
+ * &#64;ReadOnlyQueries 메서드 안에서 실행하면 읽기 전용 힌트도 넣습니다. (ReadOnlyQueryHints)
+ * ProfiledJPAQueryFactory가 만들고, clone()해도 ProfiledJPAQuery로 복사됩니다.
+ * iterate(), stream()은 첫 결과를 읽을 수 있을 때까지(쿼리 실행)만 잽니다.
+ * <p>
+ * 지문은 쿼리 인스턴스마다 처음 실행할 때 만들고, 조건, join, 정렬이 바뀌지 않았으면 다시 실행해도 재사용합니다.
+ * (요청마다 새로 만드는 쿼리는 요청마다 한 번 만든다. 비용은 QueryFingerprintBenchmark로 확인)
+ */
+public class ProfiledJPAQuery<T> extends JPAQuery<T> {
+    // 마지막으로 만든 지문과 그때의 메타데이터 상태
+    private String fingerprint;
+    private FingerprintStamp fingerprintStamp;
+
+    public ProfiledJPAQuery(EntityManager em) {
+        super(em);
+    }
+
+    public ProfiledJPAQuery(EntityManager em, QueryMetadata metadata) {
+        super(em, metadata);
+    }
+
+    public ProfiledJPAQuery(EntityManager em, JPQLTemplates templates, QueryMetadata metadata) {
+        super(em, templates, metadata);
+    }
+
+    @Override
+    public List<T> fetch() {
+        return SlowQueryLog.execute(() -> fingerprint("select"), () -> bindings(false), super::fetch);
+    }
+
+    @Override
+    public T fetchOne() {
+        return SlowQueryLog.execute(() -> fingerprint("select"), () -> bindings(false), super::fetchOne);
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public long fetchCount() {
+        return SlowQueryLog.execute(() -> fingerprint("count"), () -> bindings(true), super::fetchCount);
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public QueryResults<T> fetchResults() {
+        return SlowQueryLog.execute(() -> fingerprint("select+count"), () -> bindings(false), super::fetchResults);
+    }
+
+    @Override
+    public CloseableIterator<T> iterate() {
+        return SlowQueryLog.execute(() -> fingerprint("iterate"), () -> bindings(false), super::iterate);
+    }
+
+    @Override
+    public Stream<T> stream() {
+        return SlowQueryLog.execute(() -> fingerprint("stream"), () -> bindings(false), super::stream);
+    }
+
+    // fetch, fetchOne, fetchCount, iterate, stream 모두 여기서 jakarta.persistence.Query를 만든다.
+    @Override
+    protected Query createQuery(QueryModifiers modifiers, boolean forCount) {
+        return ReadOnlyQueryHints.apply(super.createQuery(modifiers, forCount));
+    }
+
+    @Override
+    public ProfiledJPAQuery<T> clone(EntityManager entityManager, JPQLTemplates templates) {
+        ProfiledJPAQuery<T> query = new ProfiledJPAQuery<>(entityManager, templates, getMetadata().clone());
+        query.clone(this);
+        return query;
+    }
+
+    @Override
+    public ProfiledJPAQuery<T> clone(EntityManager entityManager) {
+        return clone(entityManager, JPAProvider.getTemplates(entityManager));
+    }
+
+    private String fingerprint(String kind) {
+        QueryMetadata metadata = getMetadata();
+        FingerprintStamp stamp = FingerprintStamp.of(metadata, kind);
+        if (fingerprint == null || !stamp.equals(fingerprintStamp)) {
+            fingerprint = QueryFingerprint.of(metadata, kind);
+            fingerprintStamp = stamp;
+        }
+        return fingerprint;
+    }
+
+    // 지문에 들어가는 부분이 바뀌었는지 싸게 확인하기 위한 값
+    // where(), on(), orderBy() 등은 새 표현식을 만들거나 목록에 추가하므로 참조와 개수로 충분하다. (같은 참조면 equals도 바로 끝난다.)
+    private record FingerprintStamp(String kind, int joins, Object lastJoin, Object where,
+                                    int groupBy, Object having, int orderBy, Object lastOrder) {
+        private static FingerprintStamp of(QueryMetadata metadata, String kind) {
+            List<?> joins = metadata.getJoins();
+            List<?> orderBy = metadata.getOrderBy();
+            return new FingerprintStamp(kind,
+                    joins.size(), joins.isEmpty() ? null : joins.get(joins.size() - 1),
+                    metadata.getWhere(),
+                    metadata.getGroupBy().size(), metadata.getHaving(),
+                    orderBy.size(), orderBy.isEmpty() ? null : orderBy.get(orderBy.size() - 1));
+        }
+    }
+
+    // 느린 실행일 때만 호출되므로 여기서 한 번 더 직렬화해도 된다.
+    private String bindings(boolean forCount) {
+        JPQLSerializer serializer = createSerializer();
+        serializer.serialize(getMetadata(), forCount, null);
+        return describe(serializer.getConstants(), getMetadata().getParams());
+    }
+
+    // ?1, ?2 ... 순서의 값 (Param은 바인딩된 값으로 바꾼다.)
+    static String describe(List<Object> constants, Map<ParamExpression<?>, Object> params) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < constants.size(); i++) {
+            Object constant = constants.get(i);
+            Object value = constant instanceof ParamExpression<?> param ? params.get(param) : constant;
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append('?').append(i + 1).append('=').append(value);
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.querydsl.repository.support;
+
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.jpa.impl.JPADeleteClause;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import jakarta.persistence.EntityManager;
+
+/**
+ * select(), selectFrom(), from() 등으로 ProfiledJPAQuery를 만드는 JPAQueryFactory
+ * update(), delete()는 실행하는 동안 BulkStatements를 켜서 벌크 연산이 STATEMENT 이벤트로 알려지게 한다.
+ */
+public class ProfiledJPAQueryFactory extends JPAQueryFactory {
+    private final EntityManager entityManager;
+
+    public ProfiledJPAQueryFactory(EntityManager entityManager) {
+        super(entityManager);
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public JPAQuery<?> query() {
+        return new ProfiledJPAQuery<Void>(entityManager);
+    }
+
+    @Override
+    public JPAUpdateClause update(EntityPath<?> path) {
+        return new JPAUpdateClause(entityManager, path) {
+            @Override
+            public long execute() {
+                return BulkStatements.execute(super::execute);
+            }
+        };
+    }
+
+    @Override
+    public JPADeleteClause delete(EntityPath<?> path) {
+        return new JPADeleteClause(entityManager, path) {
+            @Override
+            public long execute() {
+                return BulkStatements.execute(super::execute);
+            }
+        };
+    }
+}
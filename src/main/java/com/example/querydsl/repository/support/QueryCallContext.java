@@ -0,0 +1,90 @@
+package com.example.querydsl.repository.support;
+
+import java.util.regex.Pattern;
+
+/**
+ * repository 메서드 호출 하나 동안 모으는 조회 정보 (SQL 문장 수, 조건의 모양, count 실행 여부)
+ * <p>
+ * QueryMetricsInterceptor가 호출을 시작할 때 현재 스레드에 만들고, SQL을 실행하는 쪽(StatementInspector),
+ * 조건을 만드는 쪽(MemberPredicateCompiler), count 캐시는 static 메서드로 값을 기록합니다.
+ * 메트릭이 꺼져 있으면 enabled 필드 하나만 보고 바로 돌아갑니다.
+ */
+public final class QueryCallContext {
+    // use_sql_comments로 붙는 /* ... */ 주석 뒤의 select count(
+    private static final Pattern COUNT = Pattern.compile(
+            "\\s*(?:/\\*.*?\\*/\\s*)*select\\s+count\\(", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final ThreadLocal<QueryCallContext> CURRENT = new ThreadLocal<>();
+    private static volatile boolean enabled;
+
+    private int statements;
+    private boolean countExecuted;
+    private boolean countRequested;
+    private Object shape;
+
+    private QueryCallContext() {
+    }
+
+    static void enable() {
+        enabled = true;
+    }
+
+    // 이미 진행 중인 호출이 있으면(repository가 다른 repository를 호출) null을 반환하고 바깥 호출에 합산한다.
+    static QueryCallContext begin() {
+        if (CURRENT.get() != null) {
+            return null;
+        }
+        QueryCallContext context = new QueryCallContext();
+        CURRENT.set(context);
+        return context;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    private static QueryCallContext current() {
+        return enabled ? CURRENT.get() : null;
+    }
+
+    public static void onStatement(String sql) {
+        QueryCallContext context = current();
+        if (context != null) {
+            context.statements++;
+            if (!context.countExecuted && COUNT.matcher(sql).lookingAt()) {
+                context.countExecuted = true;
+            }
+        }
+    }
+
+    // 조건의 모양 (MemberQueryShape 등), 메트릭의 shape 태그로 사용
+    public static void shape(Object shape) {
+        QueryCallContext context = current();
+        if (context != null && context.shape == null) {
+            context.shape = shape;
+        }
+    }
+
+    // 전체 개수가 필요하다고 판단해서 count를 요청함 (캐시에서 꺼냈을 수도 있다.)
+    public static void countRequested() {
+        QueryCallContext context = current();
+        if (context != null) {
+            context.countRequested = true;
+        }
+    }
+
+    int getStatements() {
+        return statements;
+    }
+
+    Object getShape() {
+        return shape;
+    }
+
+    // executed : count SQL 실행, cached : 캐시된 count 사용, skipped : 현재 페이지만으로 전체 개수를 알아서 건너뜀
+    String countOutcome() {
+        if (countExecuted) {
+            return "executed";
+        }
+        return countRequested ? "cached" : "skipped";
+    }
+}
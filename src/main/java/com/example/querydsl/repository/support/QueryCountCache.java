@@ -0,0 +1,104 @@
+package com.example.querydsl.repository.support;
+
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import com.example.querydsl.entity.listener.EntityChangeEvent;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.jpa.impl.JPAQuery;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 페이징 count 쿼리 결과 캐시
+ * count 쿼리는 컨텐츠 쿼리와 같은 조인, 같은 조건으로 전체를 세기 때문에 컨텐츠 쿼리보다 비싼 경우가 많습니다.
+ * 같은 조건의 count 결과를 TTL 동안 재사용하고, Member/Team이 변경되면 전부 비웁니다. (트랜잭션이 끝난 뒤에 한 번 더)
+ * 쓰기 트랜잭션 안에서는 캐시를 거치지 않습니다.
+ */
+@Component
+@Log4j2
+public class QueryCountCache {
+    private final ExpiringCache<List<Object>, Long> cache;
+
+    public QueryCountCache(@Value("${query.count-cache.ttl:30s}") Duration ttl,
+                           @Value("${query.count-cache.max-size:1000}") int maxSize) {
+        this.cache = new ExpiringCache<>(maxSize, ttl);
+    }
+
+    /**
+     * @param scope 같은 검색 조건이라도 count 쿼리가 다른 경우(조인 여부 등)를 구분하기 위한 값
+     * @param key   정규화된 검색 조건 (MemberSearchKey 등)
+     */
+    public long getOrCount(String scope, Object key, LongSupplier countQuery) {
+        QueryCallContext.countRequested();
+        // 쓰기 트랜잭션 안에서는 아직 커밋하지 않은 변경이 count에 섞이므로 캐시를 읽지도 채우지도 않는다.
+        if (inReadWriteTransaction()) {
+            return countQuery.getAsLong();
+        }
+        return cache.getOrLoad(List.of(scope, key), countQuery::getAsLong);
+    }
+
+    // 검색 조건 객체가 없는 곳(Querydsl4RepositorySupport)에서는 count 쿼리의 조인과 where 절을 키로 사용한다.
+    // Querydsl 표현식의 toString()은 상수 값까지 포함하므로 조건이 같으면 같은 문자열이 된다.
+    // (Param으로 바인딩한 값은 toString()에 나오지 않으므로 파라미터 값도 함께 붙인다.)
+    public long getOrCount(JPAQuery<Long> countQuery) {
+        return getOrCount(countQuery, countQuery::fetchOne);
+    }
+
+    // count 쿼리를 실행하는 방법(소요 시간 기록 등)을 바꾸고 싶을 때 사용
+    public long getOrCount(JPAQuery<Long> countQuery, LongSupplier counter) {
+        return getOrCount("query", keyOf(countQuery), counter);
+    }
+
+    // 캐시된 count가 있을 때만 값을 반환하고 쿼리는 실행하지 않는다.
+    public OptionalLong getIfPresent(JPAQuery<Long> countQuery) {
+        QueryCallContext.countRequested();
+        if (inReadWriteTransaction()) {
+            return OptionalLong.empty();
+        }
+        Long cached = cache.get(List.of("query", keyOf(countQuery)));
+        return cached != null ? OptionalLong.of(cached) : OptionalLong.empty();
+    }
+
+    private static String keyOf(JPAQuery<Long> countQuery) {
+        QueryMetadata metadata = countQuery.getMetadata();
+        return metadata.getJoins() + " where " + metadata.getWhere() + " " + metadata.getParams();
+    }
+
+    private static boolean inReadWriteTransaction() {
+        return TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    @EventListener
+    public void onEntityChange(EntityChangeEvent event) {
+        if (!event.isAbout(Member.class) && !event.isAbout(Team.class)) {
+            return;
+        }
+        cache.invalidateAll();
+        // 커밋 전에 다른 요청이 변경 전 count를 다시 캐시할 수 있으므로 트랜잭션이 끝난 뒤에 한 번 더 비운다.
+        if (TransactionSynchronizationManager.isSynchronizationActive()
+                && !TransactionSynchronizationManager.hasResource(this)) {
+            TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(QueryCountCache.this);
+                    cache.invalidateAll();
+                }
+            });
+        }
+    }
+
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+}
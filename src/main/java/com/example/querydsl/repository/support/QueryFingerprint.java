@@ -0,0 +1,136 @@
+package com.example.querydsl.repository.support;
+
+import com.querydsl.core.JoinExpression;
+import com.querydsl.core.JoinFlag;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.SubQueryExpression;
+import com.querydsl.core.types.TemplateExpression;
+import com.querydsl.jpa.JPAQueryMixin;
+
+import java.util.List;
+
+/**
+ * Querydsl 쿼리의 모양(AST)으로 만든 지문
+ * <p>
+ * from 엔티티, join, 조건에 들어있는 경로와 연산자, group by, order by만 남기고 값은 ?로 바꿉니다.
+ * 값만 다른 실행은 같은 지문이 되므로 지문별로 실행 시간을 모을 수 있습니다.
+ * ex) select from Member member left join member.team team where and(goe(member.age, ?), in(member.team.id, ?)) order by member.id desc
+ */
+public final class QueryFingerprint {
+
+    private QueryFingerprint() {
+    }
+
+    // kind : select, count 등 같은 메타데이터를 다르게 실행하는 경우를 구분
+    public static String of(QueryMetadata metadata, String kind) {
+        StringBuilder builder = new StringBuilder(128).append(kind);
+        append(metadata, builder);
+        return builder.toString();
+    }
+
+    private static void append(QueryMetadata metadata, StringBuilder builder) {
+        List<JoinExpression> joins = metadata.getJoins();
+        for (int i = 0; i < joins.size(); i++) {
+            JoinExpression join = joins.get(i);
+            builder.append(i == 0 ? " from " : " " + join.getType().name().toLowerCase() + " ");
+            if (join.getFlags().contains(JPAQueryMixin.FETCH)) {
+                builder.append("fetch ");
+            }
+            shape(join.getTarget(), builder);
+            if (join.getCondition() != null) {
+                builder.append(" on ");
+                shape(join.getCondition(), builder);
+            }
+            for (JoinFlag flag : join.getFlags()) {
+                if (!flag.equals(JPAQueryMixin.FETCH)) {
+                    builder.append(' ').append(flag.getFlag());
+                }
+            }
+        }
+        if (metadata.getWhere() != null) {
+            builder.append(" where ");
+            shape(metadata.getWhere(), builder);
+        }
+        if (!metadata.getGroupBy().isEmpty()) {
+            builder.append(" group by ");
+            shapes(metadata.getGroupBy(), builder);
+        }
+        if (metadata.getHaving() != null) {
+            builder.append(" having ");
+            shape(metadata.getHaving(), builder);
+        }
+        List<OrderSpecifier<?>> orderBy = metadata.getOrderBy();
+        for (int i = 0; i < orderBy.size(); i++) {
+            OrderSpecifier<?> order = orderBy.get(i);
+            builder.append(i == 0 ? " order by " : ", ");
+            shape(order.getTarget(), builder);
+            builder.append(order.isAscending() ? " asc" : " desc");
+        }
+    }
+
+    private static void shapes(List<? extends Expression<?>> expressions, StringBuilder builder) {
+        for (int i = 0; i < expressions.size(); i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            shape(expressions.get(i), builder);
+        }
+    }
+
+    // 템플릿 인자는 Expression이 아닌 값(문자열, 숫자 등)일 수도 있다. 값은 ?로 바꾼다.
+    private static void templateArgs(List<?> args, StringBuilder builder) {
+        for (int i = 0; i < args.size(); i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            Object arg = args.get(i);
+            if (arg instanceof Expression<?> expression) {
+                shape(expression, builder);
+            } else {
+                builder.append('?');
+            }
+        }
+    }
+
+    private static void shape(Expression<?> expression, StringBuilder builder) {
+        if (expression instanceof Path<?> path) {
+            builder.append(path);
+        } else if (expression instanceof ParamExpression<?> param) {
+            builder.append(':').append(param.getName());
+        } else if (expression instanceof Constant<?>) {
+            builder.append('?');
+        } else if (expression instanceof Operation<?> operation) {
+            if (operation.getOperator() == Ops.ALIAS) {
+                shape(operation.getArg(0), builder);
+                builder.append(' ');
+                shape(operation.getArg(1), builder);
+                return;
+            }
+            builder.append(operation.getOperator().name().toLowerCase()).append('(');
+            shapes(operation.getArgs(), builder);
+            builder.append(')');
+        } else if (expression instanceof TemplateExpression<?> template) {
+            builder.append('{').append(template.getTemplate()).append("}(");
+            templateArgs(template.getArgs(), builder);
+            builder.append(')');
+        } else if (expression instanceof SubQueryExpression<?> subQuery) {
+            builder.append("(select");
+            append(subQuery.getMetadata(), builder);
+            builder.append(')');
+        } else if (expression instanceof FactoryExpression<?> factory) {
+            builder.append(factory.getType().getSimpleName()).append('(');
+            shapes(factory.getArgs(), builder);
+            builder.append(')');
+        } else {
+            builder.append(expression.getClass().getSimpleName());
+        }
+    }
+}
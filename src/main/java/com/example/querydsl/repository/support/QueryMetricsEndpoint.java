@@ -0,0 +1,80 @@
+package com.example.querydsl.repository.support;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * /actuator/queries : repository 메서드별 조회 메트릭 요약 (총 소요 시간이 큰 순서)
+ * 각 값은 /actuator/metrics/query.repository.calls 등에서도 태그로 나눠서 볼 수 있습니다.
+ */
+@Component
+@Endpoint(id = "queries")
+@RequiredArgsConstructor
+public class QueryMetricsEndpoint {
+    private final MeterRegistry registry;
+
+    @ReadOperation
+    public List<Map<String, Object>> queries() {
+        List<Timer> timers = new ArrayList<>(registry.find(QueryMetricsInterceptor.CALLS).timers());
+        timers.sort(Comparator.comparingDouble((Timer timer) -> timer.totalTime(TimeUnit.MILLISECONDS)).reversed());
+
+        List<Map<String, Object>> result = new ArrayList<>(timers.size());
+        for (Timer timer : timers) {
+            String repository = timer.getId().getTag("repository");
+            String method = timer.getId().getTag("method");
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("repository", repository);
+            row.put("method", method);
+            row.put("shape", timer.getId().getTag("shape"));
+            row.put("outcome", timer.getId().getTag("outcome"));
+            row.put("calls", timer.count());
+            row.put("totalMillis", timer.totalTime(TimeUnit.MILLISECONDS));
+            row.put("meanMillis", timer.mean(TimeUnit.MILLISECONDS));
+            row.put("maxMillis", timer.max(TimeUnit.MILLISECONDS));
+            for (ValueAtPercentile percentile : timer.takeSnapshot().percentileValues()) {
+                row.put("p" + Math.round(percentile.percentile() * 100) + "Millis",
+                        percentile.value(TimeUnit.MILLISECONDS));
+            }
+            row.put("statementsPerCall", mean(QueryMetricsInterceptor.STATEMENTS, repository, method));
+            row.put("rowsPerCall", mean(QueryMetricsInterceptor.ROWS, repository, method));
+            row.put("pageCount", pageCount(repository, method));
+            result.add(row);
+        }
+        return result;
+    }
+
+    private Double mean(String name, String repository, String method) {
+        DistributionSummary summary = registry.find(name)
+                .tag("repository", repository)
+                .tag("method", method)
+                .summary();
+        return summary != null ? summary.mean() : null;
+    }
+
+    // executed, cached, skipped 별 횟수 (Page를 반환하지 않는 메서드는 비어있다.)
+    private Map<String, Double> pageCount(String repository, String method) {
+        Map<String, Double> counts = new TreeMap<>();
+        for (Counter counter : registry.find(QueryMetricsInterceptor.PAGE_COUNT)
+                .tag("repository", repository)
+                .tag("method", method)
+                .counters()) {
+            counts.put(counter.getId().getTag("count"), counter.count());
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.querydsl.repository.support;
+
+import com.querydsl.core.QueryResults;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * repository 메서드 호출마다 메트릭을 기록하는 인터셉터 (QueryMetricsPostProcessor가 repository 프록시에 붙인다.)
+ * <p>
+ * query.repository.calls      : 호출 시간 (repository, method, shape, outcome)
+ * query.repository.statements : 호출 한 번에 실행한 SQL 문장 수
+ * query.repository.rows       : 반환한 로우 수 (List, Page, Slice 등)
+ * query.repository.page.count : Page를 반환할 때 count를 실행했는지(executed), 캐시를 썼는지(cached), 건너뛰었는지(skipped)
+ * Stream을 반환하는 메서드는 스트림을 만드는 시간까지만 잰다.
+ */
+class QueryMetricsInterceptor implements MethodInterceptor {
+    static final String CALLS = "query.repository.calls";
+    static final String STATEMENTS = "query.repository.statements";
+    static final String ROWS = "query.repository.rows";
+    static final String PAGE_COUNT = "query.repository.page.count";
+
+    private final MeterRegistry registry;
+    private final String repository;
+
+    QueryMetricsInterceptor(MeterRegistry registry, String repository) {
+        this.registry = registry;
+        this.repository = repository;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        if (invocation.getMethod().getDeclaringClass() == Object.class) {
+            return invocation.proceed();
+        }
+        QueryCallContext context = QueryCallContext.begin();
+        if (context == null) {
+            return invocation.proceed();
+        }
+        long start = System.nanoTime();
+        String outcome = "success";
+        Object result = null;
+        try {
+            result = invocation.proceed();
+            return result;
+        } catch (Throwable e) {
+            outcome = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            QueryCallContext.end();
+            record(invocation.getMethod().getName(), context, result, outcome, System.nanoTime() - start);
+        }
+    }
+
+    private void record(String method, QueryCallContext context, Object result, String outcome, long nanos) {
+        Timer.builder(CALLS)
+                .tag("repository", repository)
+                .tag("method", method)
+                .tag("shape", context.getShape() != null ? context.getShape().toString() : "none")
+                .tag("outcome", outcome)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder(STATEMENTS)
+                .tag("repository", repository)
+                .tag("method", method)
+                .register(registry)
+                .record(context.getStatements());
+
+        long rows = rowsOf(result);
+        if (rows >= 0) {
+            DistributionSummary.builder(ROWS)
+                    .tag("repository", repository)
+                    .tag("method", method)
+                    .publishPercentileHistogram()
+                    .register(registry)
+                    .record(rows);
+        }
+        if (result instanceof Page<?>) {
+            Counter.builder(PAGE_COUNT)
+                    .tag("repository", repository)
+                    .tag("method", method)
+                    .tag("count", context.countOutcome())
+                    .register(registry)
+                    .increment();
+        }
+    }
+
+    // 로우 수를 알 수 없는 반환값(Stream, 숫자 등)은 -1
+    private static long rowsOf(Object result) {
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result instanceof Slice<?> slice) {
+            return slice.getNumberOfElements();
+        }
+        if (result instanceof Optional<?> optional) {
+            return optional.isPresent() ? 1 : 0;
+        }
+        if (result instanceof QueryResults<?> queryResults) {
+            return queryResults.getResults().size();
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.querydsl.repository.support;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+/**
+ * query.metrics.enabled가 켜져 있으면 repository 빈에 QueryMetricsInterceptor를 붙입니다.
+ * (Spring Data repository 인터페이스, @Repository 클래스)
+ * 꺼져 있으면 아무 빈도 바꾸지 않으므로 호출 비용이 늘지 않습니다.
+ */
+@Component
+public class QueryMetricsPostProcessor implements BeanPostProcessor {
+    private static final String BASE_PACKAGE = "com.example.querydsl";
+
+    private final boolean enabled;
+    // BeanPostProcessor는 먼저 만들어지므로 MeterRegistry는 처음 사용할 때 꺼낸다.
+    private final ObjectProvider<MeterRegistry> registry;
+
+    public QueryMetricsPostProcessor(@Value("${query.metrics.enabled:false}") boolean enabled,
+                                     ObjectProvider<MeterRegistry> registry) {
+        this.enabled = enabled;
+        this.registry = registry;
+        if (enabled) {
+            QueryCallContext.enable();
+        }
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!enabled) {
+            return bean;
+        }
+        String repository = repositoryName(bean);
+        if (repository == null) {
+            return bean;
+        }
+        QueryMetricsInterceptor interceptor = new QueryMetricsInterceptor(registry.getObject(), repository);
+        if (bean instanceof Advised advised && !advised.isFrozen()) {
+            advised.addAdvice(0, interceptor);
+            return bean;
+        }
+        ProxyFactory factory = new ProxyFactory(bean);
+        // Spring Data repository는 인터페이스(JDK) 프록시, @Repository 클래스는 클래스 프록시
+        factory.setProxyTargetClass(!(bean instanceof Repository<?, ?>));
+        factory.addAdvice(interceptor);
+        return factory.getProxy(ClassUtils.getDefaultClassLoader());
+    }
+
+    // 메트릭에 사용할 repository 이름, repository가 아니면 null
+    private static String repositoryName(Object bean) {
+        if (bean instanceof Repository<?, ?>) {
+            // Spring Data 프록시는 구현체가 SimpleJpaRepository이므로 우리가 만든 인터페이스 이름을 사용한다.
+            for (Class<?> type : ClassUtils.getAllInterfaces(bean)) {
+                if (type.getPackageName().startsWith(BASE_PACKAGE)) {
+                    return type.getSimpleName();
+                }
+            }
+            return null;
+        }
+        Class<?> type = AopUtils.getTargetClass(bean);
+        if (type.getPackageName().startsWith(BASE_PACKAGE)
+                && AnnotatedElementUtils.hasAnnotation(type, org.springframework.stereotype.Repository.class)) {
+            return type.getSimpleName();
+        }
+        return null;
+    }
+}
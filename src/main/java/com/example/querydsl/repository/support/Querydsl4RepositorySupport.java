@@ -1,6 +1,8 @@
 package com.example.querydsl.repository.support;
 
 import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.dsl.NumberPath;
 import com.querydsl.core.types.dsl.PathBuilder;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
@@ -9,7 +11,9 @@ import jakarta.persistence.EntityManager;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.support.JpaEntityInformation;
 import org.springframework.data.jpa.repository.support.JpaEntityInformationSupport;
 import org.springframework.data.jpa.repository.support.Querydsl;
@@ -21,7 +25,9 @@ import com.querydsl.core.types.Expression;
 
 
 import java.util.List;
+import java.util.OptionalLong;
 import java.util.function.Function;
+import java.util.function.LongSupplier;
 
 /**
  * Querydsl 4.x 버전에 맞춘 Querydsl 지원 라이브러리
@@ -41,6 +47,14 @@ public abstract class Querydsl4RepositorySupport {
     private EntityManager entityManager;
     // queryFactory를 통해 Querydsl 쿼리를 생성하고 실행합니다.
     private JPAQueryFactory queryFactory;
+    // 같은 조건의 count 쿼리 결과를 재사용하기 위한 캐시
+    private QueryCountCache countCache;
+    // CountPolicy에 따라 전체 개수를 구하는 컴포넌트
+    private TotalCountResolver totalCountResolver;
+    // count 쿼리를 컨텐츠 쿼리와 동시에 실행하는 컴포넌트 (설정으로 켠 경우에만 사용)
+    private ConcurrentCountExecutor concurrentCount;
+    // 엔티티의 id 경로 (count 추정에서 표본 범위를 자를 때 사용, Long 타입 id 기준)
+    private NumberPath<Long> idPath;
 
     public Querydsl4RepositorySupport(Class<?> domainClass) {
         Assert.notNull(domainClass, "Domain class must not be null!");
@@ -63,9 +77,28 @@ public abstract class Querydsl4RepositorySupport {
         // querydsl 객체를 생성합니다.
         // 이 객체는 Querydsl의 핵심 기능을 사용할 수 있도록 도와줍니다.
         // 엔터티의 메타모델 정보를 이용하여 Querydsl의 PathBuilder를 생성하고, 이를 이용하여 Querydsl 객체를 초기화합니다.
-        this.querydsl = new Querydsl(entityManager, new
-                PathBuilder<>(path.getType(), path.getMetadata()));
-        this.queryFactory = new JPAQueryFactory(entityManager);
+        PathBuilder<?> pathBuilder = new PathBuilder<>(path.getType(), path.getMetadata());
+        this.querydsl = new Querydsl(entityManager, pathBuilder);
+        this.queryFactory = new ProfiledJPAQueryFactory(entityManager);
+        this.idPath = pathBuilder.getNumber(entityInformation.getIdAttribute().getName(), Long.class);
+    }
+
+    @Autowired
+    public void setCountCache(QueryCountCache countCache) {
+        Assert.notNull(countCache, "QueryCountCache must not be null!");
+        this.countCache = countCache;
+    }
+
+    @Autowired
+    public void setTotalCountResolver(TotalCountResolver totalCountResolver) {
+        Assert.notNull(totalCountResolver, "TotalCountResolver must not be null!");
+        this.totalCountResolver = totalCountResolver;
+    }
+
+    @Autowired
+    public void setConcurrentCount(ConcurrentCountExecutor concurrentCount) {
+        Assert.notNull(concurrentCount, "ConcurrentCountExecutor must not be null!");
+        this.concurrentCount = concurrentCount;
     }
 
     // 해당 클래스의 빈(Bean)이 초기화될 때 자동으로 실행되는 메서드
@@ -74,6 +107,9 @@ public abstract class Querydsl4RepositorySupport {
         Assert.notNull(entityManager, "EntityManager must not be null!");
         Assert.notNull(querydsl, "Querydsl must not be null!");
         Assert.notNull(queryFactory, "QueryFactory must not be null!");
+        Assert.notNull(countCache, "QueryCountCache must not be null!");
+        Assert.notNull(totalCountResolver, "TotalCountResolver must not be null!");
+        Assert.notNull(concurrentCount, "ConcurrentCountExecutor must not be null!");
     }
     // 이 팩토리는 JPA 쿼리를 생성하는 데 사용됩니다.
     protected JPAQueryFactory getQueryFactory() {
@@ -87,6 +123,11 @@ public abstract class Querydsl4RepositorySupport {
     protected EntityManager getEntityManager() {
         return entityManager;
     }
+    // count 쿼리를 바로 실행하지 않고, 필요할 때 캐시를 거쳐서 실행하도록 감싼다.
+    // PageableExecutionUtils.getPage()에 넘겨서 count가 필요 없는 페이지에서는 아예 실행되지 않게 한다.
+    protected LongSupplier cachedCount(JPAQuery<Long> countQuery) {
+        return () -> countCache.getOrCount(countQuery);
+    }
     // Querydsl을 사용하여 쿼리의 SELECT 절을 생성하는 메서드입니다.
     // expr은 선택할 엔터티나 엔터티의 속성에 대한 표현식입니다.
     protected <T> JPAQuery<T> select(Expression<T> expr) {
@@ -98,36 +139,180 @@ public abstract class Querydsl4RepositorySupport {
         return getQueryFactory().selectFrom(from);
     }
 
+    // 컨텐츠 쿼리에서 count 쿼리를 만든다. (프로젝션, orderBy, fetch join, 사용하지 않는 to-one left join 제거)
+    // 컨텐츠 쿼리에 페이징을 적용하기 전에 호출해야 한다. (Querydsl.applyPagination은 쿼리를 직접 수정한다.)
+    protected JPAQuery<Long> countQueryOf(JPAQuery<?> contentQuery) {
+        return CountQueryDeriver.derive(getEntityManager(), contentQuery);
+    }
+
     // 이 메서드는 주어진 contentQuery를 사용하여 Querydsl을 통해 JPA 쿼리를 생성하고 실행하고,
     // 그 결과를 Spring Data의 Page 객체로 변환하는 기능을 제공
     protected <T> Page<T> applyPagination(Pageable pageable,
                                           Function<JPAQueryFactory, JPAQuery> contentQuery) {
         // 1. contentQuery를 사용하여 JPAQuery 객체를 생성
         JPAQuery jpaQuery = contentQuery.apply(getQueryFactory());
-        // 2. Querydsl을 사용하여 페이징 및 정렬된 결과를 가져옴
+        // 2. 페이징을 적용하기 전에 contentQuery에서 countQuery를 만듦
+        //    (컨텐츠 쿼리를 한 번 더 실행하지 않고 count(*)만 실행)
+        JPAQuery<Long> countQuery = countQueryOf(jpaQuery);
+        // 3. Querydsl을 사용하여 페이징 및 정렬된 결과를 가져옴
         List<T> content = getQuerydsl().applyPagination(pageable,
                 jpaQuery).fetch();
-        // 3. contentQuery를 다시 사용하여 countQuery를 생성
-        JPAQuery<Long> countQuery = contentQuery.apply(getQueryFactory());
-        // 4. countQuery를 실행하고 총 레코드 수를 얻음
-        long total = countQuery.fetchOne();
-        // 5. content와 pageable 정보를 사용하여 Spring Data의 Page 객체를 생성하고 반환
+        // 4. content와 pageable 정보를 사용하여 Spring Data의 Page 객체를 생성하고 반환
+        //    (countQuery는 전체 레코드 수가 필요한 경우에만 캐시를 거쳐서 실행)
         return PageableExecutionUtils.getPage(content, pageable,
-                () -> total);
+                cachedCount(countQuery));
+    }
+
+    // count 쿼리를 따로 넘기지 않고 contentQuery에서 만들어서 CountPolicy에 따라 처리한다.
+    protected <T> CountedPage<T> applyPagination(Pageable pageable,
+                                                 Function<JPAQueryFactory, JPAQuery> contentQuery,
+                                                 CountPolicy countPolicy) {
+        return applyPagination(pageable, contentQuery,
+                queryFactory -> countQueryOf(contentQuery.apply(queryFactory)), countPolicy);
     }
     // 이 메서드는 contentQuery와 함께 countQuery를 인자로 받아서 사용합니다.
     // contentQuery를 사용하여 페이징된 결과를 가져오고, countQuery를 사용하여 전체 레코드 수를 얻습니다.
     protected <T> Page<T> applyPagination(Pageable pageable,
                                           Function<JPAQueryFactory, JPAQuery> contentQuery, Function<JPAQueryFactory,
             JPAQuery> countQuery) {
+        if (concurrentCount.isEnabled() && pageable.isPaged()) {
+            return applyPaginationConcurrently(pageable, contentQuery, countQuery);
+        }
         JPAQuery jpaContentQuery = contentQuery.apply(getQueryFactory());
         List<T> content = getQuerydsl().applyPagination(pageable,
                 jpaContentQuery).fetch();
         JPAQuery<Long> countResult = countQuery.apply(getQueryFactory());
         log.info("countResult : " + countResult );
 
-        Long total = countResult.fetchOne();
         return PageableExecutionUtils.getPage(content, pageable,
-                () -> total);
+                cachedCount(countResult));
+    }
+
+    // count 쿼리를 먼저 다른 스레드(별도의 읽기 전용 EntityManager)에서 시작하고 컨텐츠 쿼리를 실행한다.
+    // 페이지 응답 시간이 컨텐츠 + count가 아니라 둘 중 느린 쪽이 된다.
+    // 대신 count가 필요 없는 페이지에서도 취소될 때까지 count가 커넥션 하나를 쓴다. (ConcurrentCountExecutor.PendingCount)
+    private <T> Page<T> applyPaginationConcurrently(Pageable pageable,
+                                                    Function<JPAQueryFactory, JPAQuery> contentQuery,
+                                                    Function<JPAQueryFactory, JPAQuery> countQuery) {
+        JPAQuery<Long> countResult = countQuery.apply(getQueryFactory());
+        ConcurrentCountExecutor.PendingCount total = concurrentCount.submit(countResult);
+        if (total == null) {
+            // 쓰기 트랜잭션 안이거나 동시에 실행 중인 count가 많으면 기존처럼 순서대로 실행한다.
+            List<T> content = getQuerydsl().applyPagination(pageable,
+                    contentQuery.apply(getQueryFactory())).fetch();
+            return PageableExecutionUtils.getPage(content, pageable, cachedCount(countResult));
+        }
+
+        List<T> content;
+        try {
+            content = getQuerydsl().applyPagination(pageable,
+                    contentQuery.apply(getQueryFactory())).fetch();
+        } catch (RuntimeException e) {
+            total.cancel();
+            throw e;
+        }
+        // PageableExecutionUtils가 count를 건너뛰는 페이지(첫 페이지가 덜 찼거나 마지막 페이지)는
+        // count 결과를 기다리지 않고 컨텐츠로 total을 정하고, 실행 중인 count statement는 취소한다.
+        OptionalLong known = TotalCountResolver.knownTotal(content, pageable);
+        if (known.isPresent()) {
+            total.cancel();
+            return new PageImpl<>(content, pageable, known.getAsLong());
+        }
+        return new PageImpl<>(content, pageable, concurrentCount.join(total));
+    }
+
+    // countPolicy에 따라 전체 개수를 정확히 세거나(EXACT), 추정하거나(ESTIMATED), 세지 않는다(NONE).
+    // AUTO는 과거 count 소요 시간을 보고 EXACT, ESTIMATED 중에서 고르며, 기록은 repository 단위와 count 쿼리 모양별로 남긴다.
+    protected <T> CountedPage<T> applyPagination(Pageable pageable,
+                                                 Function<JPAQueryFactory, JPAQuery> contentQuery,
+                                                 Function<JPAQueryFactory, JPAQuery> countQuery,
+                                                 CountPolicy countPolicy) {
+        JPAQuery jpaContentQuery = contentQuery.apply(getQueryFactory());
+        getQuerydsl().applyPagination(pageable, jpaContentQuery);
+        if (pageable.isPaged()) {
+            // NONE 정책은 다음 페이지 여부를 알기 위해 하나 더 조회한다.
+            jpaContentQuery.limit(TotalCountResolver.contentLimit(pageable, countPolicy));
+        }
+        List<T> content = jpaContentQuery.fetch();
+        JPAQuery<Long> countResult = countQuery.apply(getQueryFactory());
+
+        return totalCountResolver.getPage(content, pageable, countPolicy, PageCount.builder()
+                .countQuery(countResult)
+                .id(idPath)
+                .scope(getClass().getSimpleName())
+                .build());
+    }
+
+    // id 먼저 페이징 : 조건과 정렬로 id만 페이징한 뒤, 그 id들을 contentQuery(fetch join 포함)로 한 번에 읽는다.
+    // contentQuery는 루트 엔티티를 조회하는 쿼리여야 한다. (selectFrom(member).join(...).fetchJoin()...)
+    protected <T> Page<T> applyIdFirstPagination(Pageable pageable,
+                                                 Function<JPAQueryFactory, JPAQuery> contentQuery) {
+        return applyIdFirstPagination(pageable, contentQuery, CountPolicy.EXACT);
+    }
+
+    protected <T> CountedPage<T> applyIdFirstPagination(Pageable pageable,
+                                                        Function<JPAQueryFactory, JPAQuery> contentQuery,
+                                                        CountPolicy countPolicy) {
+        JPAQuery<T> jpaContentQuery = contentQuery.apply(getQueryFactory());
+        JPAQuery<Long> countQuery = countQueryOf(jpaContentQuery);
+
+        // 1단계 : id만 정렬, 페이징
+        // 정렬은 id 쿼리를 만들기 전에 넣는다. (to-many join으로 중복을 제거할 때 정렬 키를 id와 같이 조회한다.)
+        // 2단계 쿼리는 컨텐츠 쿼리의 정렬을 쓰지 않고, count 쿼리는 이미 만들었다.
+        getQuerydsl().applySorting(pageable.getSort(), jpaContentQuery);
+        JPAQuery<Long> idQuery = IdFirstQueries.idQuery(getEntityManager(), jpaContentQuery, idPath);
+        if (pageable.isPaged()) {
+            // NONE 정책은 다음 페이지 여부를 알기 위해 하나 더 조회한다.
+            idQuery.offset(pageable.getOffset())
+                    .limit(TotalCountResolver.contentLimit(pageable, countPolicy));
+        }
+        List<Long> ids = idQuery.fetch();
+
+        // 2단계 : id로 컨텐츠를 읽고 1단계 순서대로 정렬
+        List<T> content = IdFirstQueries.hydrate(getEntityManager(), jpaContentQuery, idPath, ids);
+
+        return totalCountResolver.getPage(content, pageable, countPolicy, PageCount.builder()
+                .countQuery(countQuery)
+                .id(idPath)
+                .scope(getClass().getSimpleName())
+                .build());
+    }
+
+    // DTO 프로젝션 페이징 : 엔티티를 읽지 않고 프로젝션 결과를 그대로 페이징한다. (영속성 컨텍스트, 스냅샷, 프록시가 없다.)
+    // Pageable의 정렬 속성은 엔티티 속성이 아니라 프로젝션의 별칭이므로, 정렬 키 검증과 OrderSpecifier는
+    // repository가 orderBy로 정한다. (MemberSortRegistry 등)
+    protected <T> Page<T> applyProjectionPagination(Pageable pageable,
+                                                    Function<JPAQueryFactory, JPAQuery<T>> contentQuery,
+                                                    Function<Sort, OrderSpecifier<?>[]> orderBy) {
+        JPAQuery<T> jpaContentQuery = contentQuery.apply(getQueryFactory());
+        // 정렬을 추가하기 전에 count 쿼리를 만든다.
+        JPAQuery<Long> countQuery = countQueryOf(jpaContentQuery);
+        jpaContentQuery.orderBy(orderBy.apply(pageable.getSort()));
+        if (pageable.isPaged()) {
+            jpaContentQuery.offset(pageable.getOffset()).limit(pageable.getPageSize());
+        }
+        List<T> content = jpaContentQuery.fetch();
+        return PageableExecutionUtils.getPage(content, pageable, cachedCount(countQuery));
+    }
+
+    protected <T> CountedPage<T> applyProjectionPagination(Pageable pageable,
+                                                           Function<JPAQueryFactory, JPAQuery<T>> contentQuery,
+                                                           Function<Sort, OrderSpecifier<?>[]> orderBy,
+                                                           CountPolicy countPolicy) {
+        JPAQuery<T> jpaContentQuery = contentQuery.apply(getQueryFactory());
+        JPAQuery<Long> countQuery = countQueryOf(jpaContentQuery);
+        jpaContentQuery.orderBy(orderBy.apply(pageable.getSort()));
+        if (pageable.isPaged()) {
+            // NONE 정책은 다음 페이지 여부를 알기 위해 하나 더 조회한다.
+            jpaContentQuery.offset(pageable.getOffset())
+                    .limit(TotalCountResolver.contentLimit(pageable, countPolicy));
+        }
+        List<T> content = jpaContentQuery.fetch();
+
+        return totalCountResolver.getPage(content, pageable, countPolicy, PageCount.builder()
+                .countQuery(countQuery)
+                .id(idPath)
+                .scope(getClass().getSimpleName())
+                .build());
     }
 }
@@ -0,0 +1,34 @@
+package com.example.querydsl.repository.support;
+
+import org.hibernate.FlushMode;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 이 repository(클래스) 또는 메서드 안에서 실행하는 Querydsl select 쿼리를 읽기 전용으로 실행합니다.
+ * <p>
+ * 1. org.hibernate.readOnly : 읽어온 엔티티의 더티 체킹용 스냅샷을 만들지 않는다. (수정해도 반영되지 않는다.)
+ * 2. flushMode : 쿼리 전에 영속성 컨텍스트를 flush 하지 않는다. (같은 트랜잭션에서 아직 flush 하지 않은 변경은 보이지 않는다.)
+ * 3. JDBC fetch size, 쿼리 타임아웃
+ * <p>
+ * JPAQueryFactory 빈, Querydsl4RepositorySupport가 만드는 쿼리와 CompiledQuery에 적용되고,
+ * update, delete 같은 벌크 연산과 Spring Data 메서드 이름 쿼리에는 적용되지 않습니다.
+ * 메서드에 붙인 값이 클래스에 붙인 값보다 우선합니다.
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ReadOnlyQueries {
+    // COMMIT 또는 MANUAL
+    FlushMode flushMode() default FlushMode.COMMIT;
+
+    // JDBC fetch size, 0이면 query.read-only.fetch-size (쿼리에 직접 지정한 값이 있으면 그 값을 사용)
+    int fetchSize() default 0;
+
+    // 쿼리 타임아웃(ms), 0이면 query.read-only.timeout (0s면 제한 없음)
+    int timeoutMillis() default 0;
+}
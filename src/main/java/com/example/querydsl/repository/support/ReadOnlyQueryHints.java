@@ -0,0 +1,62 @@
+package com.example.querydsl.repository.support;
+
+import jakarta.persistence.Query;
+import org.hibernate.FlushMode;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.jpa.SpecHints;
+
+/**
+ * &#64;ReadOnlyQueries 메서드를 실행하는 동안 현재 스레드에 적용할 읽기 전용 쿼리 설정
+ * <p>
+ * ReadOnlyQueryInterceptor가 메서드 호출 동안 설정하고, 쿼리를 만드는 쪽(ProfiledJPAQuery, CompiledQuery)이
+ * apply()로 jakarta.persistence.Query에 힌트를 넣습니다. 설정이 없으면 아무것도 하지 않습니다.
+ */
+public final class ReadOnlyQueryHints {
+    private static final ThreadLocal<ReadOnlyQueryHints> CURRENT = new ThreadLocal<>();
+
+    private final FlushMode flushMode;
+    private final int fetchSize;
+    private final int timeoutMillis;
+
+    ReadOnlyQueryHints(FlushMode flushMode, int fetchSize, int timeoutMillis) {
+        this.flushMode = flushMode;
+        this.fetchSize = fetchSize;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    // 이전 설정을 반환하고, 호출한 쪽은 끝날 때 restore()로 되돌린다. (중첩 호출)
+    static ReadOnlyQueryHints begin(ReadOnlyQueryHints hints) {
+        ReadOnlyQueryHints previous = CURRENT.get();
+        CURRENT.set(hints);
+        return previous;
+    }
+
+    static void restore(ReadOnlyQueryHints previous) {
+        if (previous != null) {
+            CURRENT.set(previous);
+        } else {
+            CURRENT.remove();
+        }
+    }
+
+    public static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    public static Query apply(Query query) {
+        ReadOnlyQueryHints hints = CURRENT.get();
+        if (hints == null) {
+            return query;
+        }
+        query.setHint(HibernateHints.HINT_READ_ONLY, true);
+        query.setHint(HibernateHints.HINT_FLUSH_MODE, hints.flushMode);
+        // 쿼리에 직접 지정한 값(ex. streamSearch의 fetchSize)은 그대로 둔다.
+        if (hints.fetchSize > 0 && !query.getHints().containsKey(HibernateHints.HINT_FETCH_SIZE)) {
+            query.setHint(HibernateHints.HINT_FETCH_SIZE, hints.fetchSize);
+        }
+        if (hints.timeoutMillis > 0 && !query.getHints().containsKey(SpecHints.HINT_SPEC_QUERY_TIMEOUT)) {
+            query.setHint(SpecHints.HINT_SPEC_QUERY_TIMEOUT, hints.timeoutMillis);
+        }
+        return query;
+    }
+}
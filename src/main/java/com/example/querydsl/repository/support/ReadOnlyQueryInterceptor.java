@@ -0,0 +1,64 @@
+package com.example.querydsl.repository.support;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * &#64;ReadOnlyQueries가 붙은 메서드(또는 클래스의 모든 메서드)를 실행하는 동안 ReadOnlyQueryHints를 설정하는 인터셉터
+ * (ReadOnlyQueryPostProcessor가 repository 프록시에 붙인다.)
+ */
+class ReadOnlyQueryInterceptor implements MethodInterceptor {
+    private final int defaultFetchSize;
+    private final int defaultTimeoutMillis;
+    // 메서드 -> 적용할 설정 (어노테이션이 없는 메서드는 empty)
+    private final Map<Method, Optional<ReadOnlyQueryHints>> hintsByMethod = new ConcurrentHashMap<>();
+
+    ReadOnlyQueryInterceptor(int defaultFetchSize, int defaultTimeoutMillis) {
+        this.defaultFetchSize = defaultFetchSize;
+        this.defaultTimeoutMillis = defaultTimeoutMillis;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Class<?> targetClass = invocation.getThis() != null ? AopUtils.getTargetClass(invocation.getThis()) : null;
+        Optional<ReadOnlyQueryHints> hints = hintsByMethod.computeIfAbsent(invocation.getMethod(),
+                method -> Optional.ofNullable(resolve(method, targetClass)));
+        if (hints.isEmpty()) {
+            return invocation.proceed();
+        }
+        ReadOnlyQueryHints previous = ReadOnlyQueryHints.begin(hints.get());
+        try {
+            return invocation.proceed();
+        } finally {
+            ReadOnlyQueryHints.restore(previous);
+        }
+    }
+
+    // 구현 클래스의 메서드, 인터페이스 메서드, 구현 클래스, 인터페이스 순서로 찾는다.
+    private ReadOnlyQueryHints resolve(Method method, Class<?> targetClass) {
+        Method specificMethod = targetClass != null ? AopUtils.getMostSpecificMethod(method, targetClass) : method;
+        ReadOnlyQueries annotation = AnnotatedElementUtils.findMergedAnnotation(specificMethod, ReadOnlyQueries.class);
+        if (annotation == null) {
+            annotation = AnnotatedElementUtils.findMergedAnnotation(method, ReadOnlyQueries.class);
+        }
+        if (annotation == null && targetClass != null) {
+            annotation = AnnotatedElementUtils.findMergedAnnotation(targetClass, ReadOnlyQueries.class);
+        }
+        if (annotation == null) {
+            annotation = AnnotatedElementUtils.findMergedAnnotation(method.getDeclaringClass(), ReadOnlyQueries.class);
+        }
+        if (annotation == null) {
+            return null;
+        }
+        return new ReadOnlyQueryHints(annotation.flushMode(),
+                annotation.fetchSize() > 0 ? annotation.fetchSize() : defaultFetchSize,
+                annotation.timeoutMillis() > 0 ? annotation.timeoutMillis() : defaultTimeoutMillis);
+    }
+}
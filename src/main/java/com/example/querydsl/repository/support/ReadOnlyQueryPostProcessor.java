@@ -0,0 +1,75 @@
+package com.example.querydsl.repository.support;
+
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * &#64;ReadOnlyQueries가 붙은 빈(클래스 또는 메서드)에 ReadOnlyQueryInterceptor를 붙입니다.
+ * Spring Data repository 인터페이스에 붙여도 되고, Querydsl4RepositorySupport를 상속한 클래스에 붙여도 됩니다.
+ */
+@Component
+public class ReadOnlyQueryPostProcessor implements BeanPostProcessor {
+    private static final String BASE_PACKAGE = "com.example.querydsl";
+
+    private final int fetchSize;
+    private final int timeoutMillis;
+
+    public ReadOnlyQueryPostProcessor(@Value("${query.read-only.fetch-size:100}") int fetchSize,
+                                      @Value("${query.read-only.timeout:0s}") Duration timeout) {
+        this.fetchSize = fetchSize;
+        this.timeoutMillis = (int) timeout.toMillis();
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!isAnnotated(bean)) {
+            return bean;
+        }
+        ReadOnlyQueryInterceptor interceptor = new ReadOnlyQueryInterceptor(fetchSize, timeoutMillis);
+        if (bean instanceof Advised advised && !advised.isFrozen()) {
+            advised.addAdvice(0, interceptor);
+            return bean;
+        }
+        ProxyFactory factory = new ProxyFactory(bean);
+        // Spring Data repository는 인터페이스(JDK) 프록시, 그 외는 클래스 프록시
+        factory.setProxyTargetClass(!(bean instanceof Repository<?, ?>));
+        factory.addAdvice(interceptor);
+        return factory.getProxy(ClassUtils.getDefaultClassLoader());
+    }
+
+    private static boolean isAnnotated(Object bean) {
+        if (bean instanceof Repository<?, ?>) {
+            // Spring Data 프록시는 구현체가 SimpleJpaRepository이므로 우리가 만든 인터페이스를 본다.
+            for (Class<?> type : ClassUtils.getAllInterfaces(bean)) {
+                if (type.getPackageName().startsWith(BASE_PACKAGE) && isAnnotated(type)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        Class<?> type = AopUtils.getTargetClass(bean);
+        return type.getPackageName().startsWith(BASE_PACKAGE) && isAnnotated(type);
+    }
+
+    private static boolean isAnnotated(Class<?> type) {
+        if (AnnotatedElementUtils.hasAnnotation(type, ReadOnlyQueries.class)) {
+            return true;
+        }
+        AtomicBoolean found = new AtomicBoolean();
+        ReflectionUtils.doWithMethods(type,
+                method -> found.set(true),
+                method -> AnnotatedElementUtils.hasAnnotation(method, ReadOnlyQueries.class));
+        return found.get();
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.querydsl.repository.support;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Querydsl 쿼리를 지문(QueryFingerprint)별로 실행 시간을 모으고, 느린 실행만 SQL과 바인딩 값을 로그로 남기는 컴포넌트
+ * <p>
+ * org.hibernate.SQL 디버그 로그는 모든 SQL을 남겨서 부하가 있을 때 쓸 수 없습니다.
+ * 여기서는 실행 시간이 threshold를 넘은 경우에만 실제 SQL(SqlStatementInspector가 알려준 문장)과 값을 남깁니다.
+ * ProfiledJPAQuery, CompiledQuery가 execute()로 실행을 감싸고, 빈이 없으면(설정으로 끈 경우) 그냥 실행합니다.
+ */
+@Component
+@Log4j2
+public class SlowQueryLog {
+    // 지문 수가 max-fingerprints를 넘으면 나머지는 여기에 모은다.
+    static final String OTHER = "(other)";
+    // 실행 하나에서 기억하는 SQL 문장 수 (fetchResults는 count + 컨텐츠)
+    private static final int MAX_STATEMENTS = 4;
+
+    private static volatile SlowQueryLog active;
+    private static final ThreadLocal<Execution> CURRENT = new ThreadLocal<>();
+
+    private final long thresholdNanos;
+    private final int maxFingerprints;
+    private final int samples;
+    private final Map<String, Timings> timings = new ConcurrentHashMap<>();
+
+    public SlowQueryLog(@Value("${query.slow-query.enabled:true}") boolean enabled,
+                        @Value("${query.slow-query.threshold:200ms}") Duration threshold,
+                        @Value("${query.slow-query.max-fingerprints:1000}") int maxFingerprints,
+                        @Value("${query.slow-query.samples:1024}") int samples) {
+        this.thresholdNanos = threshold.toNanos();
+        this.maxFingerprints = maxFingerprints;
+        this.samples = samples;
+        active = enabled ? this : null;
+    }
+
+    /**
+     * 쿼리 실행을 감싸서 시간을 잰다.
+     *
+     * @param fingerprint 쿼리 지문, 실행이 끝난 뒤 매번 호출되므로 호출하는 쪽이 캐시해서 돌려준다.
+     *                    (CompiledQuery는 처음 한 번, ProfiledJPAQuery는 쿼리 인스턴스마다 한 번 만든다.)
+     * @param bindings    느린 실행일 때만 만드는 바인딩 값 설명
+     */
+    public static <R> R execute(Supplier<String> fingerprint, Supplier<String> bindings, Supplier<R> execution) {
+        SlowQueryLog slowQueryLog = active;
+        // fetchResults 안에서 다시 fetch 하는 경우 등은 바깥 실행에 합산한다.
+        if (slowQueryLog == null || CURRENT.get() != null) {
+            return execution.get();
+        }
+        Execution current = new Execution();
+        CURRENT.set(current);
+        long start = System.nanoTime();
+        try {
+            return execution.get();
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            CURRENT.remove();
+            slowQueryLog.record(fingerprint.get(), elapsed, current.statements, bindings);
+        }
+    }
+
+    // SqlStatementInspector가 실행하는 SQL을 알려준다.
+    public static void onStatement(String sql) {
+        Execution current = CURRENT.get();
+        if (current != null && current.statements.size() < MAX_STATEMENTS) {
+            current.statements.add(sql);
+        }
+    }
+
+    // 백분위(p95)가 큰 순서대로 limit개
+    public List<SlowQueryStats> slowest(int limit) {
+        List<SlowQueryStats> stats = new ArrayList<>(timings.size());
+        timings.forEach((fingerprint, timing) -> stats.add(timing.snapshot(fingerprint)));
+        stats.sort(Comparator.comparingDouble(SlowQueryStats::getP95Millis).reversed());
+        return stats.size() > limit ? new ArrayList<>(stats.subList(0, limit)) : stats;
+    }
+
+    public void clear() {
+        timings.clear();
+    }
+
+    private void record(String fingerprint, long elapsedNanos, List<String> statements, Supplier<String> bindings) {
+        Timings timing = timings.get(fingerprint);
+        if (timing == null) {
+            String key = timings.size() < maxFingerprints ? fingerprint : OTHER;
+            timing = timings.computeIfAbsent(key, k -> new Timings(samples));
+        }
+        boolean slow = elapsedNanos >= thresholdNanos;
+        String sql = slow ? String.join(";\n", statements) : null;
+        timing.record(elapsedNanos, sql);
+        if (slow) {
+            log.warn("느린 쿼리 {}ms\n지문 : {}\nSQL : {}\n바인딩 : {}",
+                    elapsedNanos / 1_000_000, fingerprint, sql, bindings.get());
+        }
+    }
+
+    private static final class Execution {
+        private final List<String> statements = new ArrayList<>(2);
+    }
+
+    // 지문 하나의 실행 시간, 최근 samples개는 원형 버퍼에 보관해서 백분위를 구한다.
+    private static final class Timings {
+        private final long[] recent;
+        private int next;
+        private int filled;
+        private long count;
+        private long slowCount;
+        private long totalNanos;
+        private long maxNanos;
+        private String lastSlowSql;
+
+        private Timings(int samples) {
+            this.recent = new long[samples];
+        }
+
+        private synchronized void record(long nanos, String slowSql) {
+            recent[next] = nanos;
+            next = (next + 1) % recent.length;
+            filled = Math.min(filled + 1, recent.length);
+            count++;
+            totalNanos += nanos;
+            maxNanos = Math.max(maxNanos, nanos);
+            if (slowSql != null) {
+                slowCount++;
+                lastSlowSql = slowSql;
+            }
+        }
+
+        private synchronized SlowQueryStats snapshot(String fingerprint) {
+            long[] sorted = Arrays.copyOf(recent, filled);
+            Arrays.sort(sorted);
+            return new SlowQueryStats(fingerprint, count, slowCount,
+                    count == 0 ? 0.0 : millis(totalNanos) / count,
+                    percentile(sorted, 0.50), percentile(sorted, 0.95), percentile(sorted, 0.99),
+                    millis(maxNanos), lastSlowSql);
+        }
+
+        private static double percentile(long[] sorted, double p) {
+            if (sorted.length == 0) {
+                return 0.0;
+            }
+            int rank = (int) Math.ceil(p * sorted.length) - 1;
+            return millis(sorted[Math.max(rank, 0)]);
+        }
+
+        private static double millis(long nanos) {
+            return nanos / 1_000_000.0;
+        }
+    }
+}
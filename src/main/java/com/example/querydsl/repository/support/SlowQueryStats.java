@@ -0,0 +1,26 @@
+package com.example.querydsl.repository.support;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 쿼리 지문 하나의 실행 시간 통계 (밀리초)
+ * 횟수, 평균, 최대는 시작 이후 전체, 백분위는 최근 실행(query.slow-query.samples개) 기준
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class SlowQueryStats {
+    private final String fingerprint;
+    private final long count;
+    // threshold를 넘어서 로그를 남긴 횟수
+    private final long slowCount;
+    private final double meanMillis;
+    private final double p50Millis;
+    private final double p95Millis;
+    private final double p99Millis;
+    private final double maxMillis;
+    // 마지막으로 threshold를 넘은 실행의 SQL (없으면 null)
+    private final String lastSlowSql;
+}
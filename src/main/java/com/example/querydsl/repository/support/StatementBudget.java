@@ -0,0 +1,140 @@
+package com.example.querydsl.repository.support;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * 범위(요청, 테스트 메서드 등) 안에서 실행한 SQL 문장 수를 세서 예산을 넘거나 N+1이 의심되면 알려주는 유틸리티
+ * <p>
+ * SqlStatementInspector가 모든 SQL을 onStatement()로 넘겨주고, 현재 스레드에 열린 범위가 있을 때만 셉니다.
+ * Hibernate가 만드는 SQL은 값이 ?로 들어가므로 같은 문자열이 여러 번 나오면 같은 쿼리를 반복한 것입니다.
+ * (ex. 지연 로딩 프록시를 로우마다 초기화하는 경우)
+ * <pre>
+ * try (StatementBudget.Scope scope = StatementBudget.open("search", 2, 5, StatementBudget.Mode.FAIL)) {
+ *     memberService.search2(condition, pageable);
+ * }
+ * </pre>
+ */
+@Log4j2
+public final class StatementBudget {
+    public enum Mode {
+        // 세지 않는다.
+        OFF,
+        // 예산을 넘거나 반복이 보이면 경고 로그를 남긴다.
+        LOG,
+        // 예산을 넘거나 반복이 보이면 그 SQL을 실행하기 전에 StatementBudgetExceededException을 던진다.
+        FAIL
+    }
+
+    // use_sql_comments로 붙는 /* ... */ 주석
+    private static final Pattern COMMENT = Pattern.compile("/\\*.*?\\*/", Pattern.DOTALL);
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+
+    private StatementBudget() {
+    }
+
+    /**
+     * @param maxStatements   이 범위에서 실행할 수 있는 SQL 문장 수
+     * @param repeatThreshold 같은 SQL이 이 횟수만큼 실행되면 N+1로 본다.
+     */
+    public static Scope open(String name, int maxStatements, int repeatThreshold, Mode mode) {
+        Scope scope = new Scope(name, maxStatements, repeatThreshold, mode, CURRENT.get());
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    public static Scope current() {
+        return CURRENT.get();
+    }
+
+    public static void onStatement(String sql) {
+        Scope scope = CURRENT.get();
+        if (scope != null) {
+            scope.record(sql);
+        }
+    }
+
+    public static final class Scope implements AutoCloseable {
+        private final String name;
+        private final int maxStatements;
+        private final int repeatThreshold;
+        private final Mode mode;
+        // 바깥 범위 (요청 안에서 연 범위 등), 바깥 범위에도 같이 센다.
+        private final Scope parent;
+        private int statements;
+        // 주석을 뗀 SQL -> 실행 횟수
+        private final Map<String, Integer> executions = new LinkedHashMap<>();
+
+        private Scope(String name, int maxStatements, int repeatThreshold, Mode mode, Scope parent) {
+            this.name = name;
+            this.maxStatements = maxStatements;
+            this.repeatThreshold = repeatThreshold;
+            this.mode = mode;
+            this.parent = parent;
+        }
+
+        private void record(String sql) {
+            if (parent != null) {
+                parent.record(sql);
+            }
+            if (mode == Mode.OFF) {
+                return;
+            }
+            statements++;
+            String statement = COMMENT.matcher(sql).replaceAll("").trim();
+            int count = executions.merge(statement, 1, Integer::sum);
+            if (count == repeatThreshold) {
+                violation("같은 SQL이 " + count + "번 실행되었습니다. (N+1 의심) : " + statement);
+            }
+            if (statements == maxStatements + 1) {
+                violation("SQL 문장 수가 예산(" + maxStatements + ")을 넘었습니다. 마지막 SQL : " + statement);
+            }
+        }
+
+        private void violation(String message) {
+            String detail = "[" + name + "] " + message;
+            if (mode == Mode.FAIL) {
+                throw new StatementBudgetExceededException(detail);
+            }
+            log.warn(detail);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getMaxStatements() {
+            return maxStatements;
+        }
+
+        public int getStatements() {
+            return statements;
+        }
+
+        // 실행한 SQL별 횟수 (실행 순서대로)
+        public Map<String, Integer> getExecutions() {
+            return Collections.unmodifiableMap(executions);
+        }
+
+        // 준비 단계(데이터 저장 등)의 SQL을 빼고 셀 때 사용
+        public void reset() {
+            statements = 0;
+            executions.clear();
+        }
+
+        @Override
+        public void close() {
+            if (CURRENT.get() == this) {
+                if (parent != null) {
+                    CURRENT.set(parent);
+                } else {
+                    CURRENT.remove();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.querydsl.repository.support;
+
+/**
+ * 요청(또는 StatementBudget 범위) 하나에서 실행한 SQL 문장 수가 예산을 넘었거나
+ * 같은 SQL이 반복 실행되었을 때(N+1 의심) FAIL 모드에서 던지는 예외
+ */
+public class StatementBudgetExceededException extends IllegalStateException {
+    public StatementBudgetExceededException(String message) {
+        super(message);
+    }
+}
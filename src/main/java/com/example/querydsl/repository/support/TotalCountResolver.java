@@ -0,0 +1,250 @@
+package com.example.querydsl.repository.support;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.NumberPath;
+import jakarta.persistence.EntityManager;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * 페이징의 전체 개수(total)를 CountPolicy에 따라 구하는 컴포넌트
+ * <p>
+ * EXACT     : count 쿼리 (QueryCountCache를 거침)
+ * ESTIMATED : 테이블 통계(H2 INFORMATION_SCHEMA.TABLES.ROW_COUNT_ESTIMATE) × 표본에서 조건에 맞는 비율
+ *             (표본은 id 범위 전체에 고르게 나눈 구간들, 구간 안의 로우가 한쪽에 몰려 있으면 오차가 생길 수 있다.)
+ * NONE      : 개수를 구하지 않고 pageSize + 1개를 조회해서 다음 페이지 여부만 판단
+ * AUTO      : 선택도가 높은 조건이면 EXACT, 과거 count가 느렸던 조건(scope + 쿼리 모양)이면 ESTIMATED
+ *             (ESTIMATED로 바뀐 조건도 auto-reprobe-every번마다 한 번은 정확하게 세어서 다시 판단)
+ */
+@Component
+@Log4j2
+public class TotalCountResolver {
+    // 표본을 나눠 잡는 id 구간 수
+    private static final int SAMPLE_BLOCKS = 16;
+
+    private final EntityManager em;
+    private final QueryCountCache countCache;
+    // 표본으로 사용할 로우 수 (id 범위 전체에 고르게 나눠서)
+    private final int sampleSize;
+    // AUTO 정책에서 이 시간보다 오래 걸리던 count는 추정으로 바꾼다.
+    private final long autoEstimateThresholdNanos;
+    // 추정으로 바꾼 조건도 이 횟수마다 한 번은 정확하게 세어서 소요 시간을 다시 잰다.
+    private final int autoReprobeEvery;
+    // scope + 쿼리 모양별 정확한 count 소요 시간
+    private final Map<TimingKey, CountTiming> exactCountTimings = new ConcurrentHashMap<>();
+
+    public TotalCountResolver(EntityManager em,
+                              QueryCountCache countCache,
+                              @Value("${query.count-policy.sample-size:10000}") int sampleSize,
+                              @Value("${query.count-policy.auto-estimate-threshold:50ms}") Duration autoEstimateThreshold,
+                              @Value("${query.count-policy.auto-reprobe-every:100}") int autoReprobeEvery) {
+        this.em = em;
+        this.countCache = countCache;
+        this.sampleSize = sampleSize;
+        this.autoEstimateThresholdNanos = autoEstimateThreshold.toNanos();
+        this.autoReprobeEvery = Math.max(1, autoReprobeEvery);
+    }
+
+    // NONE 정책은 다음 페이지가 있는지 알기 위해 하나 더 조회해야 한다.
+    public static long contentLimit(Pageable pageable, CountPolicy policy) {
+        return policy == CountPolicy.NONE ? pageable.getPageSize() + 1L : pageable.getPageSize();
+    }
+
+    public <T> CountedPage<T> getPage(List<T> content, Pageable pageable, CountPolicy policy, PageCount count) {
+        if (policy == CountPolicy.NONE) {
+            return noCountPage(content, pageable);
+        }
+        // PageableExecutionUtils와 같이 현재 페이지만 보고 total을 알 수 있으면 count를 하지 않는다.
+        OptionalLong known = knownTotal(content, pageable);
+        if (known.isPresent()) {
+            return new CountedPage<>(content, pageable, known.getAsLong(), false, CountPolicy.EXACT);
+        }
+
+        CountPolicy resolved = policy == CountPolicy.AUTO ? chooseAuto(count) : policy;
+        if (resolved == CountPolicy.ESTIMATED) {
+            OptionalLong estimated = estimate(count);
+            if (estimated.isPresent()) {
+                // 추정값이 현재 페이지까지의 개수보다 작으면 페이지 정보가 어긋나므로 최소값을 맞춘다.
+                long total = Math.max(estimated.getAsLong(), pageable.getOffset() + content.size());
+                return new CountedPage<>(content, pageable, total, true, CountPolicy.ESTIMATED);
+            }
+        }
+        return new CountedPage<>(content, pageable, exactCount(count), false, CountPolicy.EXACT);
+    }
+
+    /**
+     * 현재 페이지의 컨텐츠만으로 전체 개수를 알 수 있는 경우 (PageableExecutionUtils.getPage와 같은 규칙)
+     * 1. 첫 페이지인데 컨텐츠가 페이지 크기보다 적은 경우
+     * 2. 마지막 페이지인 경우 (컨텐츠가 있고 페이지 크기보다 적은 경우)
+     */
+    public static OptionalLong knownTotal(List<?> content, Pageable pageable) {
+        if (pageable.isUnpaged() || pageable.getOffset() == 0) {
+            if (pageable.isUnpaged() || pageable.getPageSize() > content.size()) {
+                return OptionalLong.of(content.size());
+            }
+            return OptionalLong.empty();
+        }
+        if (!content.isEmpty() && pageable.getPageSize() > content.size()) {
+            return OptionalLong.of(pageable.getOffset() + content.size());
+        }
+        return OptionalLong.empty();
+    }
+
+    private <T> CountedPage<T> noCountPage(List<T> content, Pageable pageable) {
+        boolean hasNext = content.size() > pageable.getPageSize();
+        List<T> pageContent = hasNext ? content.subList(0, pageable.getPageSize()) : content;
+        // 다음 페이지가 있으면 total을 현재까지 + 1로 두어서 hasNext()가 true가 되도록 한다.
+        long total = pageable.getOffset() + pageContent.size() + (hasNext ? 1 : 0);
+        return new CountedPage<>(pageContent, pageable, total, true, CountPolicy.NONE);
+    }
+
+    private CountPolicy chooseAuto(PageCount count) {
+        if (count.isSelective()) {
+            return CountPolicy.EXACT;
+        }
+        CountTiming timing = exactCountTimings.get(TimingKey.of(count));
+        // 아직 기록이 없으면 한 번은 정확하게 세어서 소요 시간을 기록한다.
+        if (timing == null) {
+            return CountPolicy.EXACT;
+        }
+        return timing.choose(autoEstimateThresholdNanos, autoReprobeEvery);
+    }
+
+    private long exactCount(PageCount count) {
+        LongSupplier timedCount = () -> {
+            long start = System.nanoTime();
+            long total = count.getCounter() != null
+                    ? count.getCounter().getAsLong()
+                    : count.getCountQuery().fetchOne();
+            recordExactCount(TimingKey.of(count), System.nanoTime() - start);
+            return total;
+        };
+        if (count.getKey() == null) {
+            return countCache.getOrCount(count.getCountQuery(), timedCount);
+        }
+        return countCache.getOrCount(count.getScope(), count.getKey(), timedCount);
+    }
+
+    private void recordExactCount(TimingKey key, long elapsedNanos) {
+        exactCountTimings.computeIfAbsent(key, k -> new CountTiming()).record(elapsedNanos);
+    }
+
+    // 같은 메서드(scope)라도 조건의 모양마다 count 비용이 다르므로 모양별로 기록한다.
+    // 모양을 모르면(Querydsl4RepositorySupport 등) count 쿼리의 지문을 모양으로 사용한다.
+    private record TimingKey(String scope, Object shape) {
+        private static TimingKey of(PageCount count) {
+            Object shape = count.getShape() != null
+                    ? count.getShape()
+                    : QueryFingerprint.of(count.getCountQuery().getMetadata(), "count");
+            return new TimingKey(count.getScope(), shape);
+        }
+    }
+
+    // 정확한 count 소요 시간 (지수 이동 평균, 나노초)과 추정으로 대신한 횟수
+    private static final class CountTiming {
+        private double averageNanos = -1;
+        private int estimatedSinceProbe;
+
+        private synchronized void record(long elapsedNanos) {
+            // 최근 값에 가중치를 더 준다.
+            averageNanos = averageNanos < 0 ? elapsedNanos : averageNanos * 0.7 + elapsedNanos * 0.3;
+        }
+
+        // 느린 조건이어도 reprobeEvery번마다 한 번은 EXACT로 다시 재서 데이터가 줄거나 인덱스가 생기면 돌아올 수 있게 한다.
+        private synchronized CountPolicy choose(long thresholdNanos, int reprobeEvery) {
+            if (averageNanos < thresholdNanos) {
+                estimatedSinceProbe = 0;
+                return CountPolicy.EXACT;
+            }
+            if (++estimatedSinceProbe >= reprobeEvery) {
+                estimatedSinceProbe = 0;
+                return CountPolicy.EXACT;
+            }
+            return CountPolicy.ESTIMATED;
+        }
+    }
+
+    // 추정이 불가능하면(통계가 없는 DB 등) 비어있는 값을 반환하고 정확한 count로 대신한다.
+    private OptionalLong estimate(PageCount count) {
+        NumberPath<Long> id = count.getId();
+        EntityPath<?> root = (EntityPath<?>) id.getRoot();
+        try {
+            Long tableRows = tableRowEstimate(root.getType());
+            if (tableRows == null) {
+                return OptionalLong.empty();
+            }
+            if (count.getCountQuery().getMetadata().getWhere() == null) {
+                return OptionalLong.of(tableRows);
+            }
+
+            // 앞쪽 id만 표본으로 쓰면 오래된 로우에 치우치므로 id 범위 전체에 SAMPLE_BLOCKS개의 구간을 고르게 나눠 잡는다.
+            // 구간마다 id 범위 조건이라 기본 키 인덱스로 읽고, 표본 로우 수도 같은 구간에서 세어서 id 사이의 빈 곳을 보정한다.
+            Tuple bounds = new ProfiledJPAQuery<Tuple>(em)
+                    .select(id.min(), id.max())
+                    .from(root)
+                    .fetchOne();
+            Long minId = bounds != null ? bounds.get(id.min()) : null;
+            Long maxId = bounds != null ? bounds.get(id.max()) : null;
+            if (minId == null || maxId - minId + 1 <= sampleSize) {
+                // 표본보다 테이블이 작으면 정확하게 세어도 비용이 크지 않다.
+                return OptionalLong.empty();
+            }
+            Predicate sample = sampleRanges(id, minId, maxId);
+            Long sampleRows = new ProfiledJPAQuery<Long>(em)
+                    .select(id.count())
+                    .from(root)
+                    .where(sample)
+                    .fetchOne();
+            if (sampleRows == null || sampleRows == 0) {
+                return OptionalLong.empty();
+            }
+            Long sampleMatches = count.getCountQuery().clone(em)
+                    .where(sample)
+                    .fetchOne();
+            return OptionalLong.of(Math.round(tableRows * (double) sampleMatches / sampleRows));
+        } catch (RuntimeException e) {
+            log.warn("count 추정에 실패해서 정확한 count를 사용합니다. scope : " + count.getScope(), e);
+            return OptionalLong.empty();
+        }
+    }
+
+    // [minId, maxId]를 SAMPLE_BLOCKS개로 나누고 각 구간의 앞에서 sampleSize / SAMPLE_BLOCKS개의 id 범위
+    private Predicate sampleRanges(NumberPath<Long> id, long minId, long maxId) {
+        long width = Math.max(1, sampleSize / SAMPLE_BLOCKS);
+        long stride = (maxId - minId + 1) / SAMPLE_BLOCKS;
+        BooleanBuilder ranges = new BooleanBuilder();
+        for (int i = 0; i < SAMPLE_BLOCKS; i++) {
+            long start = minId + i * stride;
+            ranges.or(id.between(start, Math.min(start + width - 1, maxId)));
+        }
+        return ranges;
+    }
+
+    // H2가 관리하는 테이블 로우 수 통계
+    private Long tableRowEstimate(Class<?> entityType) {
+        List<?> result = em.createNativeQuery(
+                        "select ROW_COUNT_ESTIMATE from INFORMATION_SCHEMA.TABLES where upper(TABLE_NAME) = ?1")
+                .setParameter(1, tableNameOf(entityType).toUpperCase())
+                .getResultList();
+        return result.isEmpty() || result.get(0) == null ? null : ((Number) result.get(0)).longValue();
+    }
+
+    // 스프링 부트 기본 네이밍 전략(CamelCaseToUnderscoresNamingStrategy)과 같은 규칙으로 테이블 이름을 만든다.
+    // ex) query_members -> query_members, Team -> team
+    private String tableNameOf(Class<?> entityType) {
+        String entityName = em.getMetamodel().entity(entityType).getName();
+        return entityName.replaceAll("([a-z0-9])([A-Z])", "$1_$2").toLowerCase();
+    }
+}
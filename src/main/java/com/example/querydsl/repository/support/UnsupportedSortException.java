@@ -0,0 +1,15 @@
+package com.example.querydsl.repository.support;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * 정렬할 수 없는 속성(등록되지 않았거나 인덱스가 없는 컬럼)으로 정렬을 요청했을 때 던지는 예외
+ * 컨트롤러까지 올라가면 400 Bad Request로 응답합니다.
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class UnsupportedSortException extends IllegalArgumentException {
+    public UnsupportedSortException(String message) {
+        super(message);
+    }
+}
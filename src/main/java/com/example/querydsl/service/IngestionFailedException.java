@@ -0,0 +1,18 @@
+package com.example.querydsl.service;
+
+import lombok.Getter;
+
+/**
+ * 대량 저장 중에 청크 저장이 실패했을 때 던지는 예외
+ * 청크마다 따로 커밋하므로 실패하기 전에 커밋된 로우 수를 같이 알려줍니다.
+ */
+@Getter
+public class IngestionFailedException extends IllegalStateException {
+    // 실패 전에 이미 커밋된 로우 수 (다시 저장할 때 건너뛸 위치)
+    private final long committedRows;
+
+    public IngestionFailedException(String message, long committedRows, Throwable cause) {
+        super(message + " (이미 커밋된 로우 : " + committedRows + ")", cause);
+        this.committedRows = committedRows;
+    }
+}
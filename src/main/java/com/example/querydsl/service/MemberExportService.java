@@ -0,0 +1,179 @@
+package com.example.querydsl.service;
+
+import com.example.querydsl.domain.MemberSearchCondition;
+import com.example.querydsl.domain.MemberTeamDTO;
+import com.example.querydsl.repository.MemberRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManager;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * 검색 결과 전체를 내려받는 서비스
+ * 결과를 List로 모으지 않고 DB에서 읽는 대로 바로 응답에 쓰기 때문에
+ * 회원 수와 관계없이 메모리 사용량이 일정합니다.
+ */
+@Service
+@Log4j2
+public class MemberExportService {
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    private final MemberRepository memberRepository;
+    private final EntityManager em;
+    private final ObjectMapper objectMapper;
+    // JDBC fetch size
+    private final int fetchSize;
+    // 이 개수만큼 쓸 때마다 응답을 flush하고 영속성 컨텍스트를 비운다.
+    private final int clearInterval;
+
+    public MemberExportService(MemberRepository memberRepository,
+                               EntityManager em,
+                               ObjectMapper objectMapper,
+                               @Value("${query.export.fetch-size:1000}") int fetchSize,
+                               @Value("${query.export.clear-interval:1000}") int clearInterval) {
+        this.memberRepository = memberRepository;
+        this.em = em;
+        this.objectMapper = objectMapper;
+        this.fetchSize = fetchSize;
+        // 0이면 % 연산에서 ArithmeticException이 나므로 시작할 때 막는다.
+        if (clearInterval < 1) {
+            throw new IllegalArgumentException("query.export.clear-interval은 1 이상이어야 합니다. : " + clearInterval);
+        }
+        this.clearInterval = clearInterval;
+    }
+
+    // 스트림은 트랜잭션(커넥션)이 열려 있는 동안에만 읽을 수 있다.
+    @Transactional(readOnly = true)
+    public long export(MemberSearchCondition condition, Format format, OutputStream out) {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        long count = 0;
+        try (Stream<MemberTeamDTO> stream = memberRepository.streamSearch(condition, fetchSize)) {
+            RowWriter rowWriter = format == Format.CSV ? new CsvRowWriter(writer) : new NdjsonRowWriter(writer);
+            Iterator<MemberTeamDTO> iterator = stream.iterator();
+            while (iterator.hasNext()) {
+                rowWriter.write(iterator.next());
+                if (++count % clearInterval == 0) {
+                    writer.flush();
+                    // DTO 조회라 엔티티가 쌓이지는 않지만, 중간에 로딩된 엔티티가 있어도 계속 쌓이지 않도록 비운다.
+                    em.clear();
+                }
+            }
+            rowWriter.finish();
+            writer.flush();
+        } catch (IOException e) {
+            // 클라이언트가 연결을 끊은 경우 등
+            throw new UncheckedIOException(e);
+        }
+        log.info("member export finished. format : " + format + ", rows : " + count);
+        return count;
+    }
+
+    private interface RowWriter {
+        void write(MemberTeamDTO dto) throws IOException;
+
+        void finish() throws IOException;
+    }
+
+    // 한 줄에 JSON 객체 하나
+    private class NdjsonRowWriter implements RowWriter {
+        private final Writer writer;
+        private final SequenceWriter sequenceWriter;
+        private boolean written;
+
+        private NdjsonRowWriter(Writer writer) throws IOException {
+            this.writer = writer;
+            this.sequenceWriter = objectMapper.writer()
+                    // 매 로우마다 flush 하지 않고 BufferedWriter에 모아서 쓴다.
+                    .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                    .withRootValueSeparator("\n")
+                    .writeValues(writer);
+        }
+
+        @Override
+        public void write(MemberTeamDTO dto) throws IOException {
+            sequenceWriter.write(dto);
+            written = true;
+        }
+
+        @Override
+        public void finish() throws IOException {
+            // SequenceWriter.close()는 응답 스트림까지 닫으므로 flush만 한다.
+            sequenceWriter.flush();
+            if (written) {
+                writer.write('\n');
+            }
+        }
+    }
+
+    private static class CsvRowWriter implements RowWriter {
+        private final Writer writer;
+
+        private CsvRowWriter(Writer writer) throws IOException {
+            this.writer = writer;
+            writer.write("memberId,userName,age,teamId,teamName\n");
+        }
+
+        @Override
+        public void write(MemberTeamDTO dto) throws IOException {
+            writer.write(String.valueOf(dto.getMemberId()));
+            writer.write(',');
+            writer.write(escape(dto.getUserName()));
+            writer.write(',');
+            writer.write(String.valueOf(dto.getAge()));
+            writer.write(',');
+            writer.write(dto.getTeamId() == null ? "" : String.valueOf(dto.getTeamId()));
+            writer.write(',');
+            writer.write(escape(dto.getTeamName()));
+            writer.write('\n');
+        }
+
+        @Override
+        public void finish() {
+        }
+
+        // 쉼표, 따옴표, 줄바꿈이 들어간 값은 따옴표로 감싸고 따옴표는 두 번 쓴다. (RFC 4180)
+        private static String escape(String value) {
+            if (value == null) {
+                return "";
+            }
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0
+                    && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+    }
+}
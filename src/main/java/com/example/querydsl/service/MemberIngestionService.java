@@ -0,0 +1,238 @@
+package com.example.querydsl.service;
+
+import com.example.querydsl.domain.MemberIngestRecord;
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import jakarta.persistence.EntityManager;
+import lombok.Getter;
+import lombok.extern.log4j.Log4j2;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 회원 대량 저장 서비스
+ * <p>
+ * 입력을 chunk-size 단위로 끊어서 청크마다 트랜잭션 하나로 저장합니다.
+ * 청크 안에서는 batch-size마다 flush, clear 해서 insert를 JDBC 배치로 보내고 영속성 컨텍스트가 커지지 않게 합니다.
+ * parallelism이 2 이상이면 서로 겹치지 않는 청크를 여러 트랜잭션에서 동시에 저장합니다.
+ * (청크 하나가 실패해도 이미 커밋된 청크는 남습니다. 첫 실패에서 입력 읽기를 멈추고
+ * 시작하지 않은 청크는 취소한 뒤, 커밋된 로우 수를 IngestionFailedException으로 알려줍니다.)
+ */
+@Service
+@Log4j2
+public class MemberIngestionService {
+    private final EntityManager em;
+    private final TransactionTemplate transactionTemplate;
+    // JDBC 배치 크기 (Member의 시퀀스 allocationSize와 같게 두면 배치마다 시퀀스를 한 번 조회한다.)
+    private final int batchSize;
+    // 한 트랜잭션에서 저장할 로우 수
+    private final int chunkSize;
+    private final int parallelism;
+    // 동시에 저장하는 트랜잭션은 각각 커넥션을 하나씩 잡으므로 요청한 parallelism을 이 값으로 제한한다.
+    private final int maxParallelism;
+
+    public MemberIngestionService(EntityManager em,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${query.ingest.batch-size:50}") int batchSize,
+                                  @Value("${query.ingest.chunk-size:5000}") int chunkSize,
+                                  @Value("${query.ingest.parallelism:1}") int parallelism,
+                                  @Value("${query.ingest.max-parallelism:0}") int maxParallelism,
+                                  @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize) {
+        this.em = em;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.chunkSize = chunkSize;
+        // 0이면 커넥션 풀 크기
+        this.maxParallelism = Math.max(1, maxParallelism > 0 ? maxParallelism : poolSize);
+        this.parallelism = Math.min(Math.max(1, parallelism), this.maxParallelism);
+    }
+
+    public IngestionResult ingest(Iterator<MemberIngestRecord> records) {
+        return ingest(records, parallelism);
+    }
+
+    /**
+     * @param parallelism 1 이상, max-parallelism보다 크면 max-parallelism으로 줄인다.
+     * @throws IllegalArgumentException parallelism이 1보다 작을 때
+     * @throws IngestionFailedException 청크 저장이 실패했을 때 (이미 커밋된 로우 수를 담는다.)
+     */
+    public IngestionResult ingest(Iterator<MemberIngestRecord> records, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism은 1 이상이어야 합니다. : " + parallelism);
+        }
+        if (parallelism > maxParallelism) {
+            log.info("parallelism " + parallelism + " -> " + maxParallelism + " (max-parallelism)");
+            parallelism = maxParallelism;
+        }
+        long start = System.nanoTime();
+        long rows = parallelism > 1
+                ? ingestInParallel(records, parallelism)
+                : ingestSequentially(records);
+        IngestionResult result = new IngestionResult(rows, Duration.ofNanos(System.nanoTime() - start));
+        log.info("member ingestion finished. " + result);
+        return result;
+    }
+
+    private long ingestSequentially(Iterator<MemberIngestRecord> records) {
+        long rows = 0;
+        List<MemberIngestRecord> chunk;
+        while (!(chunk = nextChunk(records)).isEmpty()) {
+            try {
+                rows += writeChunk(chunk);
+            } catch (RuntimeException e) {
+                throw new IngestionFailedException("청크 저장에 실패했습니다.", rows, e);
+            }
+        }
+        return rows;
+    }
+
+    private long ingestInParallel(Iterator<MemberIngestRecord> records, int parallelism) {
+        AtomicInteger sequence = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "member-ingest-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 입력을 미리 너무 많이 읽어두지 않도록 저장 중이거나 기다리는 청크 수를 제한한다.
+        Semaphore inFlight = new Semaphore(parallelism * 2);
+        // 제출한 순서대로 두고, 끝난 청크는 입력을 더 읽기 전에 확인해서 뺀다.
+        Deque<Future<Integer>> pending = new ArrayDeque<>();
+        // 트랜잭션이 커밋된 청크의 로우 수
+        AtomicLong committed = new AtomicLong();
+        try {
+            List<MemberIngestRecord> chunk;
+            while (!(chunk = nextChunk(records)).isEmpty()) {
+                // 실패한 청크가 있으면 입력을 더 읽지 않고 멈춘다.
+                // (acquire를 기다리는 동안 실패한 청크도 자리를 돌려주므로 acquire 뒤에 한 번 더 확인한다.)
+                removeFinished(pending);
+                inFlight.acquire();
+                removeFinished(pending);
+                List<MemberIngestRecord> rows = chunk;
+                pending.addLast(executor.submit(() -> {
+                    try {
+                        int written = writeChunk(rows);
+                        committed.addAndGet(written);
+                        return written;
+                    } finally {
+                        inFlight.release();
+                    }
+                }));
+            }
+            while (!pending.isEmpty()) {
+                pending.peekFirst().get();
+                pending.removeFirst();
+            }
+            return committed.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pending.forEach(future -> future.cancel(true));
+            throw new IngestionFailedException("대량 저장을 기다리는 중에 인터럽트 되었습니다.", committed.get(), e);
+        } catch (ExecutionException e) {
+            // 아직 시작하지 않은 청크는 취소하고, 저장 중인 청크는 끝날 때까지 기다려서 커밋된 로우 수를 정확히 알린다.
+            pending.forEach(future -> future.cancel(false));
+            awaitRunning(pending);
+            throw new IngestionFailedException("청크 저장에 실패했습니다.", committed.get(), e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // 끝난 청크를 제출한 순서대로 빼고, 실패한 청크가 있으면 그 예외를 던진다.
+    private void removeFinished(Deque<Future<Integer>> pending) throws ExecutionException, InterruptedException {
+        Iterator<Future<Integer>> iterator = pending.iterator();
+        while (iterator.hasNext()) {
+            Future<Integer> future = iterator.next();
+            if (future.isDone()) {
+                iterator.remove();
+                future.get();
+            }
+        }
+    }
+
+    private void awaitRunning(Deque<Future<Integer>> pending) {
+        for (Future<Integer> future : pending) {
+            if (future.isCancelled()) {
+                continue;
+            }
+            try {
+                future.get();
+            } catch (ExecutionException | CancellationException e) {
+                // 다른 청크의 실패는 첫 번째 실패와 함께 알릴 필요가 없다.
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private List<MemberIngestRecord> nextChunk(Iterator<MemberIngestRecord> records) {
+        List<MemberIngestRecord> chunk = new ArrayList<>(chunkSize);
+        while (chunk.size() < chunkSize && records.hasNext()) {
+            chunk.add(records.next());
+        }
+        return chunk;
+    }
+
+    // 청크 하나를 트랜잭션 하나로 저장
+    private int writeChunk(List<MemberIngestRecord> chunk) {
+        return transactionTemplate.execute(status -> {
+            em.unwrap(Session.class).setJdbcBatchSize(batchSize);
+            for (int i = 0; i < chunk.size(); i++) {
+                MemberIngestRecord record = chunk.get(i);
+                em.persist(Member.builder()
+                        .userName(record.getUserName())
+                        .age(record.getAge())
+                        // select 없이 프록시로 team_id만 채운다.
+                        .team(record.getTeamId() != null ? em.getReference(Team.class, record.getTeamId()) : null)
+                        .build());
+                if ((i + 1) % batchSize == 0) {
+                    em.flush();
+                    em.clear();
+                }
+            }
+            em.flush();
+            em.clear();
+            return chunk.size();
+        });
+    }
+
+    @Getter
+    public static class IngestionResult {
+        private final long rows;
+        private final Duration elapsed;
+
+        public IngestionResult(long rows, Duration elapsed) {
+            this.rows = rows;
+            this.elapsed = elapsed;
+        }
+
+        public double getRowsPerSecond() {
+            long millis = elapsed.toMillis();
+            return millis == 0 ? rows : rows * 1000.0 / millis;
+        }
+
+        @Override
+        public String toString() {
+            return "rows : " + rows + ", elapsed : " + elapsed.toMillis() + "ms, rows/sec : "
+                    + String.format("%.1f", getRowsPerSecond());
+        }
+    }
+}
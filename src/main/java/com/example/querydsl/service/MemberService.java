@@ -3,8 +3,10 @@ package com.example.querydsl.service;
 import com.example.querydsl.domain.MemberSearchCondition;
 import com.example.querydsl.domain.MemberTeamDTO;
 import com.example.querydsl.entity.Member;
-import com.example.querydsl.repository.MemberRepository;
 import com.example.querydsl.repository.MemberTestRepository;
+import com.example.querydsl.repository.TeamDictionary;
+import com.example.querydsl.repository.support.CountPolicy;
+import com.example.querydsl.repository.support.CountedPage;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -15,39 +17,44 @@ import org.springframework.stereotype.Service;
 @RequiredArgsConstructor
 public class MemberService {
     private final MemberTestRepository memberTestRepository;
-    private final MemberRepository memberRepository;
+    private final TeamDictionary teamDictionary;
 
+    // 엔티티를 읽어서 바꾸지 않고 MemberTeamDTO를 바로 페이징한다.
+    // 정렬은 DTO 필드 이름 중 인덱스가 있는 키로만 한다. (MemberSortRegistry.getAllowedKeys())
     public Page<MemberTeamDTO> search(MemberSearchCondition condition, Pageable pageable) {
-
-        Page<Member> resultPage = memberTestRepository.applyPagination2(condition, pageable);
-        return resultPage.map(member -> MemberTeamDTO.builder()
-                .memberId(member.getId())
-                .age(member.getAge())
-                .userName(member.getUserName())
-                .teamId(member.getTeam().getId())
-                .teamName(member.getTeam().getName())
-                .build());
+        return memberTestRepository.searchProjectionPage(condition, pageable);
     }
 
     public Page<MemberTeamDTO> search2(MemberSearchCondition condition, Pageable pageable) {
-        Page<Member> members = memberTestRepository.searchPageByApplyPage(condition, pageable);
-        return members.map(member -> MemberTeamDTO.builder()
-                .memberId(member.getId())
-                .age(member.getAge())
-                .userName(member.getUserName())
-                .teamId(member.getTeam().getId())
-                .teamName(member.getTeam().getName())
-                .build());
+        return memberTestRepository.searchProjectionPage(condition, pageable);
     }
 
     public Page<MemberTeamDTO> search3(MemberSearchCondition condition, Pageable pageable) {
-        Page<Member> members = memberRepository.search2(condition, pageable);
-        return members.map(member -> MemberTeamDTO.builder()
+        return search3(condition, pageable, CountPolicy.EXACT);
+    }
+
+    public CountedPage<MemberTeamDTO> search3(MemberSearchCondition condition,
+                                              Pageable pageable,
+                                              CountPolicy countPolicy) {
+        return memberTestRepository.searchProjectionPage(condition, pageable, countPolicy);
+    }
+
+    // 엔티티 페이징 결과를 DTO로 바꾸는 기존 방식 (비교용, ProjectionPagingBenchmark)
+    public Page<MemberTeamDTO> searchEntities(MemberSearchCondition condition, Pageable pageable) {
+        Page<Member> members = memberTestRepository.searchPageByApplyPage(condition, pageable);
+        return members.map(this::toDto);
+    }
+
+    // 팀 이름은 TeamDictionary에서 가져온다.
+    // 프록시의 getId()는 초기화하지 않으므로 fetch join을 하지 않은 페이지에서도 회원마다 팀을 조회하지 않는다.
+    private MemberTeamDTO toDto(Member member) {
+        Long teamId = member.getTeam() != null ? member.getTeam().getId() : null;
+        return MemberTeamDTO.builder()
                 .memberId(member.getId())
                 .age(member.getAge())
                 .userName(member.getUserName())
-                .teamId(member.getTeam().getId())
-                .teamName(member.getTeam().getName())
-                .build());
+                .teamId(teamId)
+                .teamName(teamDictionary.nameOf(teamId))
+                .build();
     }
 }
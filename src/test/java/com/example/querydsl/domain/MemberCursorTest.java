@@ -0,0 +1,68 @@
+package com.example.querydsl.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MemberCursorTest {
+
+    @Test
+    void encodeDecode() {
+        MemberTeamDTO last = MemberTeamDTO.builder()
+                .memberId(10L)
+                .userName("member|10")
+                .age(10)
+                .build();
+
+        MemberCursor cursor = MemberCursor.of("userName", true, last);
+        MemberCursor decoded = MemberCursor.decode(cursor.encode());
+
+        assertThat(decoded).isEqualTo(cursor);
+        assertThat(decoded.getUserName()).isEqualTo("member|10");
+        assertThat(decoded.matches("userName", true)).isTrue();
+        assertThat(decoded.matches("userName", false)).isFalse();
+    }
+
+    @Test
+    void encodeDecodeNullUserName() {
+        MemberTeamDTO last = MemberTeamDTO.builder()
+                .memberId(3L)
+                .build();
+
+        MemberCursor decoded = MemberCursor.decode(MemberCursor.of("memberId", false, last).encode());
+
+        assertThat(decoded.getMemberId()).isEqualTo(3L);
+        assertThat(decoded.getUserName()).isNull();
+    }
+
+    @Test
+    void invalidCursor() {
+        assertThatThrownBy(() -> MemberCursor.decode("!!!"))
+                .isInstanceOf(InvalidCursorException.class);
+    }
+
+    // Base64는 맞지만 형식이 틀린 커서도 StringIndexOutOfBounds(500)가 아니라 InvalidCursorException(400)
+    @Test
+    void malformedTokens() {
+        assertThatThrownBy(() -> MemberCursor.decode(encode("userName|A|10|")))
+                .isInstanceOf(InvalidCursorException.class);
+        assertThatThrownBy(() -> MemberCursor.decode(encode("userName|A|10|X")))
+                .isInstanceOf(InvalidCursorException.class);
+        assertThatThrownBy(() -> MemberCursor.decode(encode("userName|B|10|N")))
+                .isInstanceOf(InvalidCursorException.class);
+        assertThatThrownBy(() -> MemberCursor.decode(encode("userName|A|ten|N")))
+                .isInstanceOf(InvalidCursorException.class);
+        assertThatThrownBy(() -> MemberCursor.decode(encode("userName|A|10")))
+                .isInstanceOf(InvalidCursorException.class);
+        // 빈 이름은 V 하나로 인코딩된다.
+        assertThat(MemberCursor.decode(encode("userName|A|10|V")).getUserName()).isEmpty();
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.querydsl.repository;
+
+import com.example.querydsl.domain.MemberSuggestion;
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.listener.EntityChangeEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// DB 없이 배열 + 변경 버퍼를 합쳐서 읽는 부분만 확인한다. (트랜잭션 밖의 변경은 바로 반영된다.)
+class MemberAutocompleteTest {
+
+    private MemberAutocomplete autocomplete(int compactThreshold, MemberSuggestion... members) {
+        MemberAutocomplete autocomplete = new MemberAutocomplete(null, null, true, 50, compactThreshold);
+        autocomplete.rebuild(sink -> List.of(members).forEach(sink));
+        return autocomplete;
+    }
+
+    private static void change(MemberAutocomplete autocomplete, EntityChangeEvent.Action action,
+                               long id, String userName) {
+        Member member = Member.builder().id(id).userName(userName).build();
+        autocomplete.onEntityChange(new EntityChangeEvent(Member.class, member, action));
+    }
+
+    private static List<Long> ids(List<MemberSuggestion> suggestions) {
+        return suggestions.stream().map(MemberSuggestion::getMemberId).toList();
+    }
+
+    @Test
+    void prefixIgnoresCaseAndOrdersByNameThenId() {
+        MemberAutocomplete autocomplete = autocomplete(100,
+                new MemberSuggestion(1L, "alice", 10L),
+                new MemberSuggestion(2L, "Bob", null),
+                new MemberSuggestion(3L, "alex", 10L),
+                new MemberSuggestion(4L, "Alex", 20L));
+
+        List<MemberSuggestion> suggestions = autocomplete.suggest("AL", 10);
+
+        assertThat(autocomplete.isReady()).isTrue();
+        // 같은 이름(소문자 기준)은 id 순서
+        assertThat(ids(suggestions)).containsExactly(3L, 4L, 1L);
+        assertThat(suggestions.get(1).getUserName()).isEqualTo("Alex");
+        assertThat(suggestions.get(1).getTeamId()).isEqualTo(20L);
+        assertThat(autocomplete.suggest("b", 10).get(0).getTeamId()).isNull();
+        assertThat(autocomplete.suggest("z", 10)).isEmpty();
+    }
+
+    @Test
+    void mergesBufferedChangesInOrder() {
+        MemberAutocomplete autocomplete = autocomplete(100,
+                new MemberSuggestion(1L, "alice", null),
+                new MemberSuggestion(2L, "bob", null),
+                new MemberSuggestion(3L, "alex", null));
+
+        change(autocomplete, EntityChangeEvent.Action.PERSIST, 4L, "Alan");
+        // 배열에 있는 회원의 이름 변경 : 이전 이름은 빠지고 새 이름으로 버퍼에 들어간다.
+        change(autocomplete, EntityChangeEvent.Action.UPDATE, 2L, "albert");
+        // 버퍼에 있는 회원을 다시 변경
+        change(autocomplete, EntityChangeEvent.Action.UPDATE, 4L, "alfred");
+
+        assertThat(ids(autocomplete.suggest("al", 10))).containsExactly(2L, 3L, 4L, 1L);
+        assertThat(ids(autocomplete.suggest("al", 2))).containsExactly(2L, 3L);
+        assertThat(autocomplete.suggest("bob", 10)).isEmpty();
+        assertThat(autocomplete.suggest("alan", 10)).isEmpty();
+    }
+
+    @Test
+    void removedMembersAreSkipped() {
+        MemberAutocomplete autocomplete = autocomplete(100,
+                new MemberSuggestion(1L, "alice", null),
+                new MemberSuggestion(2L, "alex", null));
+
+        change(autocomplete, EntityChangeEvent.Action.PERSIST, 3L, "alan");
+        change(autocomplete, EntityChangeEvent.Action.REMOVE, 2L, "alex");
+        change(autocomplete, EntityChangeEvent.Action.REMOVE, 3L, "alan");
+
+        assertThat(ids(autocomplete.suggest("al", 10))).containsExactly(1L);
+    }
+
+    @Test
+    void compactionKeepsResults() {
+        MemberAutocomplete autocomplete = autocomplete(2,
+                new MemberSuggestion(1L, "alice", null),
+                new MemberSuggestion(2L, "bob", null));
+
+        // 새 엔트리 + 제외할 id
+        change(autocomplete, EntityChangeEvent.Action.PERSIST, 3L, "alan");
+        assertThat(autocomplete.pendingChanges()).isEqualTo(2);
+
+        // 버퍼 + 제외 목록이 2개를 넘으면 배열과 합친다.
+        change(autocomplete, EntityChangeEvent.Action.REMOVE, 1L, "alice");
+        assertThat(autocomplete.pendingChanges()).isZero();
+        assertThat(ids(autocomplete.suggest("al", 10))).containsExactly(3L);
+
+        // 합친 뒤의 변경도 다시 버퍼로 들어간다.
+        change(autocomplete, EntityChangeEvent.Action.UPDATE, 2L, "albert");
+        assertThat(autocomplete.pendingChanges()).isEqualTo(2);
+        assertThat(ids(autocomplete.suggest("al", 10))).containsExactly(3L, 2L);
+        assertThat(autocomplete.suggest("b", 10)).isEmpty();
+
+        change(autocomplete, EntityChangeEvent.Action.REMOVE, 3L, "alan");
+        assertThat(autocomplete.pendingChanges()).isZero();
+        assertThat(ids(autocomplete.suggest("al", 10))).containsExactly(2L);
+    }
+}
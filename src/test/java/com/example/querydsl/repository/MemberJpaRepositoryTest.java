@@ -4,6 +4,8 @@ import com.example.querydsl.domain.MemberSearchCondition;
 import com.example.querydsl.domain.MemberTeamDTO;
 import com.example.querydsl.entity.Member;
 import com.example.querydsl.entity.Team;
+import com.example.querydsl.repository.support.StatementBudget;
+import com.example.querydsl.support.MaxStatements;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
 import org.assertj.core.api.Assertions;
@@ -110,4 +112,34 @@ class MemberJpaRepositoryTest {
         assertThat(result).extracting("userName").containsExactly("member4");
     }
 
-}
\ No newline at end of file
+    @Test
+    @MaxStatements(2)
+    void searchStatementBudgetTest(StatementBudget.Scope statements) {
+        Team teamA = Team.builder()
+                .name("teamA")
+                .build();
+        Team teamB = Team.builder()
+                .name("teamB")
+                .build();
+        em.persist(teamA);
+        em.persist(teamB);
+        for (int i = 0; i < 10; i++) {
+            em.persist(Member.builder()
+                    .userName("member" + i)
+                    .age(10 + i)
+                    .team(i % 2 == 0 ? teamA : teamB)
+                    .build());
+        }
+        em.flush();
+        statements.reset();
+
+        MemberSearchCondition condition = MemberSearchCondition.builder()
+                .teamName("teamB")
+                .build();
+
+        // 팀 id 조회(아직 커밋 전이라 사전에 없음) + 회원 조회, 팀 이름 때문에 로우마다 team을 읽지 않는다.
+        List<MemberTeamDTO> result = memberJpaRepository.search(condition);
+        assertThat(result).hasSize(5);
+        assertThat(result).extracting("teamName").containsOnly("teamB");
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.querydsl.repository;
+
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.listener.EntityChangeEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// DB 없이 트라이그램 목록의 교집합만 확인한다. (트랜잭션 밖의 변경은 바로 반영된다.)
+class MemberTrigramIndexTest {
+
+    private static MemberTrigramIndex index(Map<Long, String> members, int maxCandidates) {
+        MemberTrigramIndex index = new MemberTrigramIndex(null, true, maxCandidates);
+        index.rebuild(sink -> members.forEach(sink));
+        return index;
+    }
+
+    // keyword의 트라이그램이 모두 들어있는 회원 id (인덱스가 돌려줘야 하는 후보)
+    private static long[] bruteForce(Map<Long, String> members, String keyword) {
+        long[] grams = MemberTrigramIndex.trigrams(keyword.toLowerCase());
+        return members.entrySet().stream()
+                .filter(member -> {
+                    long[] memberGrams = MemberTrigramIndex.trigrams(member.getValue().toLowerCase());
+                    return Arrays.stream(grams).allMatch(gram -> Arrays.stream(memberGrams).anyMatch(g -> g == gram));
+                })
+                .mapToLong(Map.Entry::getKey)
+                .toArray();
+    }
+
+    @Test
+    void intersectsPostingsOfDifferentSizes() {
+        // 트라이그램마다 목록 길이가 다르도록 이름을 만든다.
+        Map<Long, String> members = new TreeMap<>();
+        LongStream.rangeClosed(1, 600).forEach(id -> members.put(id,
+                (id % 2 == 0 ? "ab" : "xx") + (id % 3 == 0 ? "cd" : "yy") + id));
+        MemberTrigramIndex index = index(members, 1000);
+
+        for (String keyword : new String[]{"abcd", "bcd1", "cd12", "xyy5", "xxyy", "Abcd6"}) {
+            assertThat(index.candidates(keyword)).as(keyword)
+                    .isNotNull()
+                    .containsExactly(bruteForce(members, keyword));
+        }
+        assertThat(index.candidates("bcd1")).contains(12L, 18L, 102L, 198L).doesNotContain(6L, 13L);
+    }
+
+    @Test
+    void unusableKeywords() {
+        MemberTrigramIndex index = index(Map.of(1L, "member1", 2L, "member2"), 1);
+
+        assertThat(index.candidates("qqq")).isEmpty();
+        // 3글자보다 짧거나 와일드카드가 있으면 인덱스를 쓰지 않는다.
+        assertThat(index.candidates("me")).isNull();
+        assertThat(index.candidates("mem%")).isNull();
+        // 후보가 max-candidates보다 많으면 LIKE로만 검색한다.
+        assertThat(index.candidates("member")).isNull();
+        assertThat(index.candidates("ber2")).containsExactly(2L);
+    }
+
+    @Test
+    void appliesEntityChanges() {
+        MemberTrigramIndex index = index(new TreeMap<>(Map.of(1L, "member1", 5L, "member5")), 1000);
+
+        change(index, EntityChangeEvent.Action.PERSIST, 3L, "member3");
+        change(index, EntityChangeEvent.Action.REMOVE, 5L, "member5");
+        assertThat(index.isReady()).isTrue();
+        assertThat(index.candidates("member")).containsExactly(1L, 3L);
+
+        // 이름 변경은 새 트라이그램을 추가한다. (이전 트라이그램에 남은 id는 LIKE가 걸러준다.)
+        change(index, EntityChangeEvent.Action.UPDATE, 1L, "renamed");
+        assertThat(index.isReady()).isTrue();
+        assertThat(index.candidates("renamed")).containsExactly(1L);
+    }
+
+    private static void change(MemberTrigramIndex index, EntityChangeEvent.Action action, long id, String userName) {
+        Member member = Member.builder().id(id).userName(userName).build();
+        index.onEntityChange(new EntityChangeEvent(Member.class, member, action));
+    }
+}
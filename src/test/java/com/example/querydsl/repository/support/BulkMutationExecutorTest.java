@@ -0,0 +1,125 @@
+package com.example.querydsl.repository.support;
+
+import com.example.querydsl.entity.Member;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPADeleteClause;
+import com.querydsl.jpa.impl.JPAQuery;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.example.querydsl.entity.QMember.member;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// 청크마다 커밋하므로 @Transactional 없이 실행하고, 만든 회원은 끝나고 지운다.
+@SpringBootTest
+class BulkMutationExecutorTest {
+    private static final String USER_NAME = "bulk-mutation-test";
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    BulkMutationExecutor bulkMutationExecutor;
+
+    TransactionTemplate tx;
+
+    @BeforeEach
+    void before() {
+        tx = new TransactionTemplate(transactionManager);
+        // age 1 ~ 10
+        tx.executeWithoutResult(status -> {
+            for (int age = 1; age <= 10; age++) {
+                em.persist(Member.builder().userName(USER_NAME).age(age).build());
+            }
+        });
+    }
+
+    @AfterEach
+    void after() {
+        tx.executeWithoutResult(status ->
+                new JPADeleteClause(em, member).where(member.userName.eq(USER_NAME)).execute());
+    }
+
+    @Test
+    void updateSplitsIntoChunksAndCountsAffectedRows() {
+        List<Long> matching = ids(member.age.lt(8));
+        List<BulkMutationResult> progress = new ArrayList<>();
+
+        // 조건(age < 8)에 들어있는 컬럼을 바꿔도 id 구간으로 나누므로 로우마다 한 번씩만 바뀐다.
+        BulkMutationResult result = bulkMutationExecutor.update(member, member.id,
+                member.userName.eq(USER_NAME).and(member.age.lt(8)),
+                update -> update.set(member.age, member.age.add(100)),
+                3, progress::add);
+
+        assertThat(result.getChunks()).isEqualTo(3);
+        assertThat(result.getAffectedRows()).isEqualTo(7);
+        assertThat(result.isFinished()).isTrue();
+        assertThat(result.getMaxId()).isEqualTo(matching.get(6));
+        // 청크 경계 : 조건에 맞는 3번째, 6번째, 마지막 id
+        assertThat(progress).extracting(BulkMutationResult::getLastId)
+                .containsExactly(matching.get(2), matching.get(5), matching.get(6));
+        assertThat(progress).extracting(BulkMutationResult::getAffectedRows)
+                .containsExactly(3L, 6L, 7L);
+        assertThat(ages()).containsExactly(8, 9, 10, 101, 102, 103, 104, 105, 106, 107);
+    }
+
+    @Test
+    void deleteWithChunkSizeDividingRows() {
+        BulkMutationResult result = bulkMutationExecutor.delete(member, member.id,
+                member.userName.eq(USER_NAME).and(member.age.loe(6)), 3, null);
+
+        assertThat(result.getChunks()).isEqualTo(2);
+        assertThat(result.getAffectedRows()).isEqualTo(6);
+        assertThat(ages()).containsExactly(7, 8, 9, 10);
+    }
+
+    @Test
+    void nothingToMutate() {
+        BulkMutationResult result = bulkMutationExecutor.delete(member, member.id,
+                member.userName.eq(USER_NAME).and(member.age.gt(100)), 3, null);
+
+        assertThat(result.getChunks()).isZero();
+        assertThat(result.getAffectedRows()).isZero();
+        assertThat(result.isFinished()).isTrue();
+        assertThat(ages()).hasSize(10);
+    }
+
+    @Test
+    void refusesToJoinOuterTransaction() {
+        assertThatThrownBy(() -> tx.executeWithoutResult(status ->
+                bulkMutationExecutor.delete(member, member.id, member.userName.eq(USER_NAME))))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(ages()).hasSize(10);
+    }
+
+    private List<Long> ids(Predicate where) {
+        return tx.execute(status -> new JPAQuery<Long>(em)
+                .select(member.id)
+                .from(member)
+                .where(member.userName.eq(USER_NAME), where)
+                .orderBy(member.id.asc())
+                .fetch());
+    }
+
+    private List<Integer> ages() {
+        return tx.execute(status -> new JPAQuery<Integer>(em)
+                .select(member.age)
+                .from(member)
+                .where(member.userName.eq(USER_NAME))
+                .orderBy(member.age.asc())
+                .fetch());
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.querydsl.repository.support;
+
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.jpa.impl.JPAQuery;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+
+import static com.example.querydsl.entity.QMember.member;
+import static com.example.querydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class CountQueryDeriverTest {
+    private static final String PREFIX = "count-deriver-";
+
+    @Autowired
+    EntityManager em;
+
+    @BeforeEach
+    void before() {
+        Team teamA = Team.builder().name(PREFIX + "teamA").members(new ArrayList<>()).build();
+        em.persist(teamA);
+        em.persist(Member.builder().userName(PREFIX + "member1").age(10).team(teamA).build());
+        em.persist(Member.builder().userName(PREFIX + "member2").age(20).team(teamA).build());
+        em.persist(Member.builder().userName(PREFIX + "member3").age(30).build());
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void dropsUnreferencedToOneLeftJoin() {
+        JPAQuery<Member> contentQuery = new JPAQuery<Member>(em)
+                .select(member)
+                .from(member)
+                .leftJoin(member.team, team).fetchJoin()
+                .where(member.userName.startsWith(PREFIX));
+
+        JPAQuery<Long> countQuery = CountQueryDeriver.derive(em, contentQuery);
+
+        assertThat(countQuery.getMetadata().getJoins()).hasSize(1);
+        assertThat(countQuery.fetchOne()).isEqualTo(3L);
+    }
+
+    // left join의 별칭을 템플릿 안에서만 사용해도 join을 남겨야 한다.
+    @Test
+    void keepsLeftJoinReferencedOnlyInTemplate() {
+        JPAQuery<Member> contentQuery = new JPAQuery<Member>(em)
+                .select(member)
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(member.userName.startsWith(PREFIX),
+                        Expressions.booleanTemplate("{0} = {1}", team.name, PREFIX + "teamA"));
+
+        JPAQuery<Long> countQuery = CountQueryDeriver.derive(em, contentQuery);
+
+        assertThat(countQuery.getMetadata().getJoins()).hasSize(2);
+        assertThat(countQuery.fetchOne()).isEqualTo(2L);
+    }
+}
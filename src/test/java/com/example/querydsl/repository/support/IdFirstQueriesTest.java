@@ -0,0 +1,72 @@
+package com.example.querydsl.repository.support;
+
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.QMember;
+import com.example.querydsl.entity.Team;
+import com.querydsl.jpa.impl.JPAQuery;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.example.querydsl.entity.QMember.member;
+import static com.example.querydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class IdFirstQueriesTest {
+    private static final String PREFIX = "id-first-";
+
+    @Autowired
+    EntityManager em;
+
+    @BeforeEach
+    void before() {
+        Team teamA = Team.builder().name(PREFIX + "teamA").members(new ArrayList<>()).build();
+        Team teamB = Team.builder().name(PREFIX + "teamB").members(new ArrayList<>()).build();
+        em.persist(teamA);
+        em.persist(teamB);
+        // 이름 순서와 id 순서가 다르도록 거꾸로 저장한다.
+        em.persist(Member.builder().userName(PREFIX + "member4").age(40).team(teamB).build());
+        em.persist(Member.builder().userName(PREFIX + "member3").age(30).team(teamB).build());
+        em.persist(Member.builder().userName(PREFIX + "member2").age(20).team(teamA).build());
+        em.persist(Member.builder().userName(PREFIX + "member1").age(10).team(teamA).build());
+        em.flush();
+        em.clear();
+    }
+
+    // 같은 팀 회원(to-many)으로 거른 fetch join 쿼리를 userName으로 정렬해서 페이징한다.
+    // teamB 회원은 조건에 맞는 팀 동료가 둘이라 id가 두 번씩 나오므로 distinct가 필요하고,
+    // 정렬 키(userName)가 select 절에 없으면 H2가 쿼리를 거부한다.
+    @Test
+    void pagesToManyFetchJoinSortedByUserName() {
+        QMember teammate = new QMember("teammate");
+        JPAQuery<Member> contentQuery = new ProfiledJPAQuery<Member>(em)
+                .select(member)
+                .from(member)
+                .join(member.team, team).fetchJoin()
+                .join(team.members, teammate)
+                .where(member.userName.startsWith(PREFIX), teammate.age.goe(20))
+                .orderBy(member.userName.asc());
+
+        JPAQuery<Long> idQuery = IdFirstQueries.idQuery(em, contentQuery, member.id);
+        assertThat(idQuery.getMetadata().isDistinct()).isTrue();
+
+        List<Long> firstIds = idQuery.clone(em).offset(0).limit(3).fetch();
+        List<Member> firstPage = IdFirstQueries.hydrate(em, contentQuery, member.id, firstIds);
+        assertThat(firstPage).extracting(Member::getUserName)
+                .containsExactly(PREFIX + "member1", PREFIX + "member2", PREFIX + "member3");
+        assertThat(firstPage).allMatch(found -> found.getTeam().getName().startsWith(PREFIX));
+
+        List<Long> secondIds = idQuery.clone(em).offset(3).limit(3).fetch();
+        assertThat(IdFirstQueries.hydrate(em, contentQuery, member.id, secondIds))
+                .extracting(Member::getUserName)
+                .containsExactly(PREFIX + "member4");
+    }
+}
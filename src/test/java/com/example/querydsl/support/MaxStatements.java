@@ -0,0 +1,30 @@
+package com.example.querydsl.support;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 테스트 메서드가 실행하는 SQL 문장 수의 상한
+ * <pre>
+ * &#64;Test
+ * &#64;MaxStatements(2)
+ * void search(StatementBudget.Scope statements) {
+ *     // 데이터 준비 ...
+ *     statements.reset();
+ *     memberJpaRepository.search(condition);
+ * }
+ * </pre>
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@ExtendWith(StatementBudgetExtension.class)
+public @interface MaxStatements {
+    int value();
+
+    // 같은 SQL이 이 횟수만큼 실행되면 N+1로 보고 실패한다.
+    int repeatThreshold() default 3;
+}
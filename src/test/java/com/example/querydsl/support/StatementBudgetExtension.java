@@ -0,0 +1,88 @@
+package com.example.querydsl.support;
+
+import com.example.querydsl.repository.support.StatementBudget;
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.ParameterContext;
+import org.junit.jupiter.api.extension.ParameterResolver;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * &#64;MaxStatements가 붙은 테스트에서 실행한 SQL 문장 수를 검사하는 JUnit 확장
+ * <p>
+ * 테스트 메서드 실행 직전에 StatementBudget 범위를 열고, 끝나면 문장 수가 상한 이하인지 확인합니다.
+ * 실패하면 실행한 SQL과 횟수를 메시지에 보여줍니다.
+ * 준비 단계의 SQL을 빼려면 StatementBudget.Scope를 파라미터로 받아서 reset() 합니다.
+ */
+public class StatementBudgetExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback,
+        ParameterResolver {
+    private static final ExtensionContext.Namespace NAMESPACE =
+            ExtensionContext.Namespace.create(StatementBudgetExtension.class);
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        scope(context);
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        StatementBudget.Scope scope = context.getStore(NAMESPACE).remove(StatementBudget.Scope.class,
+                StatementBudget.Scope.class);
+        if (scope == null) {
+            return;
+        }
+        scope.close();
+        MaxStatements max = maxStatements(context);
+        String executed = describe(scope.getExecutions());
+        assertThat(scope.getStatements())
+                .as("%s : SQL 문장 수\n%s", scope.getName(), executed)
+                .isLessThanOrEqualTo(max.value());
+        assertThat(scope.getExecutions().values())
+                .as("%s : 같은 SQL 반복 (N+1 의심)\n%s", scope.getName(), executed)
+                .allMatch(count -> count < max.repeatThreshold());
+    }
+
+    @Override
+    public boolean supportsParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
+        return parameterContext.getParameter().getType() == StatementBudget.Scope.class;
+    }
+
+    @Override
+    public Object resolveParameter(ParameterContext parameterContext, ExtensionContext extensionContext) {
+        return scope(extensionContext);
+    }
+
+    // 파라미터 해석과 beforeTestExecution 중 먼저 호출되는 쪽에서 연다.
+    private static StatementBudget.Scope scope(ExtensionContext context) {
+        return context.getStore(NAMESPACE).getOrComputeIfAbsent(StatementBudget.Scope.class, type -> {
+            MaxStatements max = maxStatements(context);
+            // 실패는 테스트가 끝난 뒤 한 번에 판단하므로 실행 중에는 경고만 남긴다.
+            return StatementBudget.open(context.getDisplayName(), max.value(), max.repeatThreshold(),
+                    StatementBudget.Mode.LOG);
+        }, StatementBudget.Scope.class);
+    }
+
+    private static MaxStatements maxStatements(ExtensionContext context) {
+        MaxStatements max = AnnotatedElementUtils.findMergedAnnotation(context.getRequiredTestMethod(),
+                MaxStatements.class);
+        if (max == null) {
+            max = AnnotatedElementUtils.findMergedAnnotation(context.getRequiredTestClass(), MaxStatements.class);
+        }
+        if (max == null) {
+            throw new IllegalStateException("@MaxStatements가 없는 테스트입니다. : " + context.getDisplayName());
+        }
+        return max;
+    }
+
+    private static String describe(Map<String, Integer> executions) {
+        return executions.entrySet().stream()
+                .map(entry -> "  " + entry.getValue() + "회 : " + entry.getKey())
+                .collect(Collectors.joining("\n"));
+    }
+}